@@ -23,6 +23,11 @@
 package io.github.binsec.core;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
 import io.github.binsec.core.acqconstraint.ACQ_ConjunctionConstraint;
@@ -35,11 +40,13 @@ import io.github.binsec.core.acqconstraint.ConstraintFactory;
 import io.github.binsec.core.acqconstraint.ConstraintMapping;
 import io.github.binsec.core.acqconstraint.Contradiction;
 import io.github.binsec.core.acqconstraint.ContradictionSet;
+import io.github.binsec.core.acqconstraint.DisjunctionFamily;
 import io.github.binsec.core.acqconstraint.Formula;
 import io.github.binsec.core.acqconstraint.Unit;
 import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
 import io.github.binsec.core.acqsolver.ACQ_ConstraintSolver;
 import io.github.binsec.core.acqsolver.ACQ_IDomain;
+import io.github.binsec.core.acqsolver.ACQ_SolverPool;
 import io.github.binsec.core.acqsolver.SATModel;
 import io.github.binsec.core.acqsolver.SATSolver;
 import io.github.binsec.core.acqvariable.ACQ_CellVariable;
@@ -48,6 +55,7 @@ import io.github.binsec.core.learner.ACQ_Learner;
 import io.github.binsec.core.learner.ACQ_Query;
 import io.github.binsec.core.learner.Answer;
 import io.github.binsec.core.learner.AnswerTimeoutException;
+import io.github.binsec.core.learner.QueryBatch;
 import io.github.binsec.core.tools.Chrono;
 import io.github.binsec.core.tools.QueryPrinter;
 
@@ -79,6 +87,26 @@ public class ACQ_CONACQ {
 	protected boolean weighted = false;
 	protected ACQ_Query collapsingQuery;
 	protected QueryPrinter qp;
+	protected int batchsize = 1;
+	/*
+	 * Number of replayed queries whose kappas are computed together
+	 */
+	protected int passivechunk = 1024;
+	/*
+	 * Clauses forbidding the queries of the current batch,
+	 * only set while generating speculative queries
+	 */
+	protected CNF blocking = null;
+	/*
+	 * Solvers checking in advance the networks quickExplain is expected to check,
+	 * null when quickExplain is sequential
+	 */
+	protected ACQ_SolverPool explainPool = null;
+	protected HashMap<BitSet, CompletableFuture<Boolean>> checks = null;
+	/*
+	 * First variable reserved for the disjunctions of each family of the bias
+	 */
+	protected LinkedHashMap<DisjunctionFamily, Integer> familyVars = new LinkedHashMap<>();
 
 	public ACQ_CONACQ(ACQ_Learner learner, ACQ_Bias bias, SATSolver sat, ACQ_ConstraintSolver solv) {
 		this.bias = bias;
@@ -87,9 +115,13 @@ public class ACQ_CONACQ {
 		this.satSolver = sat;
 		this.constrSolver = solv;
 		this.domain = solv.getDomain();
-		this.mapping = new ConstraintMapping();
+		/*
+		 * the disjunctions of the bias not created yet and their negations 
+		 * get their variables on first use
+		 */
+		this.mapping = new ConstraintMapping(this::allocate, this::allocate);
 		
-		for (ACQ_IConstraint c : bias.getConstraints()) {
+		for (ACQ_IConstraint c : bias.getConstraints().created()) {
 			String newvarname = c.getName() + c.getVariables();
 			Unit unit = this.satSolver.addVar(c, newvarname);
 			this.mapping.add(c, unit);
@@ -101,7 +133,8 @@ public class ACQ_CONACQ {
 				this.mapping.add(neg, unit);
 			}
 		}
-		assert mapping.size() >= bias.getSize(): "mapping must contain more elements than bias";
+		reserveFamilyVars();
+		assert mapping.size() >= bias.getConstraints().created().size(): "mapping must contain more elements than bias";
 		filter_conjunctions();
 		this.bias_minus = bias.copy();
 		
@@ -115,9 +148,13 @@ public class ACQ_CONACQ {
 		this.satSolver = sat;
 		this.constrSolver = solv;
 		this.domain = solv.getDomain();
-		this.mapping = new ConstraintMapping();
+		/*
+		 * the disjunctions of the bias not created yet and their negations 
+		 * get their variables on first use
+		 */
+		this.mapping = new ConstraintMapping(this::allocate, this::allocate);
 		
-		for (ACQ_IConstraint c : bias.getConstraints()) {
+		for (ACQ_IConstraint c : bias.getConstraints().created()) {
 			String newvarname = c.getName() + c.getVariables();
 			Unit unit = this.satSolver.addVar(c, newvarname);
 			this.mapping.add(c, unit);
@@ -129,24 +166,22 @@ public class ACQ_CONACQ {
 				this.mapping.add(neg, unit);
 			}
 		}
+		reserveFamilyVars();
 		
 		for (ACQ_IConstraint c : knownconstraints.getConstraints()) {
+			// the negation of a disjunction of the bias may already have its variable
 			if (!bias.contains(c)) {
-				String newvarname = c.getName() + c.getVariables();
-				Unit unit = this.satSolver.addVar(c, newvarname);
-				this.mapping.add(c, unit);
+				this.mapping.get(c);
 			}
 			
 			
 			ACQ_IConstraint neg = c.getNegation();
 			if (!bias.contains(neg)) {
-				String newvarname = neg.getName() + neg.getVariables();
-				Unit unit = this.satSolver.addVar(neg, newvarname);
-				this.mapping.add(neg, unit);
+				this.mapping.get(neg);
 			}
 		}
 		
-		assert mapping.size() >= bias.getSize(): "mapping must contain more elements than bias";
+		assert mapping.size() >= bias.getConstraints().created().size(): "mapping must contain more elements than bias";
 		filter_conjunctions();
 		this.bias_minus = bias.copy();
 		
@@ -159,10 +194,66 @@ public class ACQ_CONACQ {
 	public void setWeighted(boolean b) {
 		weighted = b;
 	}
+	
+	/*
+	 * Number of queries generated from the same state of T and N
+	 * and asked together to the learner (default: 1)
+	 */
+	public void setBatchSize(int size) {
+		assert size > 0 : "batch size must be positive";
+		batchsize = size;
+	}
 
+	public void setExplainPool(ACQ_SolverPool pool) {
+		explainPool = pool;
+	}
+
+	/*
+	 * Reserves two variables per disjunction of the families of the bias,
+	 * for the disjunction and its negation, in the order of the disjunctions
+	 */
+	protected void reserveFamilyVars() {
+		for (DisjunctionFamily family : constraintFactory.getFamilies()) {
+			if (family.intersects(bias.getConstraints())) {
+				familyVars.put(family, satSolver.reserveVars(2 * family.getValidCount()));
+			}
+		}
+	}
+	
+	protected Unit allocate(ACQ_IConstraint c) {
+		boolean neg = c instanceof ACQ_ConjunctionConstraint;
+		int id = constraintFactory.findConstraintId(neg ? c.getNegation() : c);
+		if (familyOf(id) != null) {
+			return mapping.get(id, neg);
+		}
+		String newvarname = c.getName() + c.getVariables();
+		return satSolver.addVar(c, newvarname);
+	}
+	
+	/*
+	 * Unit of the constraint of id, or of its negation, which is not 
+	 * created if it is a disjunction of a family of the bias
+	 */
+	protected Unit allocate(int id, boolean neg) {
+		DisjunctionFamily family = familyOf(id);
+		if (family == null) {
+			ACQ_IConstraint c = constraintFactory.getConstraint(id);
+			return mapping.get(neg ? c.getNegation() : c);
+		}
+		int var = familyVars.get(family) + 2 * family.indexOf(id) + (neg ? 1 : 0);
+		return satSolver.addVar(() -> neg ? constraintFactory.getConstraint(id).getNegation() : 
+			constraintFactory.getConstraint(id), var);
+	}
+	
+	protected DisjunctionFamily familyOf(int id) {
+		for (DisjunctionFamily family : familyVars.keySet()) {
+			if (family.contains(id)) return family;
+		}
+		return null;
+	}
+	
 	protected void filter_conjunctions() {
-		for (Unit unit : mapping.values()) {
-			ACQ_IConstraint c = unit.getConstraint();
+		for (ACQ_IConstraint c : bias.getConstraints().created()) {
 			if (c instanceof ACQ_ConjunctionConstraint) {
 				bias.reduce(c);
 			}
@@ -288,6 +379,8 @@ public class ACQ_CONACQ {
 				chrono.stop("build_formula");
 				assert(form != null);
 				form.addCnf(N.toCNF());
+				if (blocking != null)
+					form.addCnf(blocking);
 			}
 			skip_buildformula = false;
 			//System.out.println("Start SAT solver");
@@ -303,6 +396,9 @@ public class ACQ_CONACQ {
 				
 				if (splittable) {
 					epsilon += 1;
+				} else if (blocking != null) {
+					// unsat may come from the blocking clauses, nothing can be learned
+					return q;
 				} else {
 					T.remove(alpha);
 					for (Unit unit : alpha) {
@@ -351,11 +447,99 @@ public class ACQ_CONACQ {
 			}
 			
 		}
-		if (q.isEmpty())
+		if (q.isEmpty() && blocking == null)
 			q = irredundantQuery(T);
 		return q;
 	}
 	
+	/*
+	 * Generate up to batchsize -1 other queries from the current state, 
+	 * each one satisfying at least one constraint of the kappa of every previous one.
+	 * Deductions made on T are not kept as they rely on the blocking clauses.
+	 */
+	protected ArrayList<ACQ_Query> query_gen_batch(ACQ_Query first, CNF T, ContradictionSet N) throws Exception {
+		ArrayList<ACQ_Query> batch = new ArrayList<>();
+		batch.add(first);
+		
+		CNF spec = T.clone();
+		blocking = new CNF();
+		try {
+			while (batch.size() < batchsize && !spec.isMonomial()) {
+				Clause block = new Clause();
+				for (ACQ_IConstraint c : bias_minus.getKappa(batch.get(batch.size() -1))) {
+					block.add(mapping.get(c));
+				}
+				blocking.add(block);
+				
+				ACQ_Query q = query_gen(spec, N);
+				if (q.isEmpty() || constrSolver.isTimeoutReached() || satSolver.isTimeoutReached())
+					break;
+				batch.add(q);
+			}
+		}
+		finally {
+			blocking = null;
+		}
+		return batch;
+	}
+	
+	/*
+	 * Update T with the answer of a membership query.
+	 * Return true if the query makes the acquisition collapse.
+	 */
+	protected boolean learn(ACQ_Query membership_query, Answer answer) {
+		ConstraintSet kappa = bias_minus.getKappa(membership_query);
+		if (kappa.size() == 0) {
+			// Answer already implied by previous queries of the batch
+			if (answer == Answer.NO) {
+				collapsingQuery = membership_query;
+				return true;
+			}
+			return false;
+		}
+		asked.add(membership_query);
+		assert !asked_debug.contains(membership_query.toString());
+		asked_debug.add(membership_query.toString());
+		
+		if(answer == Answer.YES) {
+			for (ACQ_IConstraint c : kappa) {
+				Unit unit = mapping.get(c).clone();
+				unit.setNeg();
+				T.unitPropagate(unit, chrono);
+			}
+			bias_minus.reduce(kappa);
+		}
+		else {
+			if (kappa.size() == 1) {
+				chrono.stop("first_constr_learned");
+				ACQ_IConstraint c = kappa.get_Constraint(0);
+				Unit unit = mapping.get(c).clone();
+				T.unitPropagate(unit, chrono);
+				Clause unary = new Clause(unit);
+				unary.setOriginQuery(membership_query);
+				T.add(unary);
+				
+				// Remove negation
+				bias_minus.reduce(c.getNegation());
+				unit = mapping.get(c.getNegation()).clone();
+				unit.setNeg();
+				T.unitPropagate(unit, chrono);
+				
+			}
+			else {
+				Clause disj = new Clause();
+				for (ACQ_IConstraint c: kappa) {
+					Unit unit = mapping.get(c).clone();
+					disj.add(unit);
+				}
+				disj.setOriginQuery(membership_query);
+				T.add(disj);
+				//T.unitPropagate(chrono);
+			}
+		}
+		return false;
+	}
+	
 	protected ACQ_Network filternet(ACQ_Network net) {
 		ACQ_Network res = new ACQ_Network(constraintFactory, bias.getVars());
 		for (ACQ_IConstraint constr : net) {
@@ -396,16 +580,19 @@ public class ACQ_CONACQ {
 		if (!alpha.isEmpty()) {
 			res.addCnf(T);
 			// No need to remove unary negative as it is never added to T
-			for(ACQ_IConstraint c : bias_minus.getConstraints()) {	
+			// Only the constraints of alpha are created
+			BitSet ids = bias_minus.getConstraints().toBitSet();
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
 				// No need to check if T contains unary negative as it is never added to T 
-				boolean cont = alpha.contains(c);
-				if (splittable && !cont && !alpha.contains(c.getNegation())) {
-					res.addClause(new Clause(mapping.get(c)));
+				Unit unit = mapping.get(id, false);
+				boolean cont = alpha.containsConstraint(unit);
+				if (splittable && !cont && !alpha.containsConstraint(mapping.get(id, true))) {
+					res.addClause(new Clause(unit));
 				}
 				if (cont) {
 					Clause newcl = new Clause();
-					newcl.add(mapping.get(c));
-					newcl.add(mapping.get(c.getNegation()));
+					newcl.add(unit);
+					newcl.add(mapping.get(id, true));
 					res.addClause(newcl);
 					if (weighted)
 						res.addMinimization(newcl);
@@ -428,17 +615,16 @@ public class ACQ_CONACQ {
 			CNF F = T.clone();
 			Clause toadd = new Clause();
 			// All constraints not in bias_minus are set to false
-			for (ACQ_IConstraint constr : bias_minus.getConstraints()) {
-				if (isUnset(constr, T, N)) {
-					//constr is unset
-					Unit toremove = mapping.get(constr.getNegation()).clone();
-					toremove.setNeg();
-					
-					F.removeIfExists(new Clause(toremove)); // TODO check if can be removed
-					//F.remove(new Clause(toremove));
-					
-					toadd.add(mapping.get(constr.getNegation()));	
-				}
+			BitSet unset = unset(T, N).toBitSet();
+			for (int id = unset.nextSetBit(0); id >= 0; id = unset.nextSetBit(id + 1)) {
+				//constr is unset
+				Unit toremove = mapping.get(id, true).clone();
+				toremove.setNeg();
+				
+				F.removeIfExists(new Clause(toremove)); // TODO check if can be removed
+				//F.remove(new Clause(toremove));
+				
+				toadd.add(mapping.get(id, true));	
 			}
 			
 			assert !toadd.isEmpty() : "toadd should not be empty";
@@ -448,19 +634,30 @@ public class ACQ_CONACQ {
 		return res;
 	}
 	
-	protected boolean isUnset(ACQ_IConstraint constr, CNF T, ContradictionSet N) {
-		Unit unit = mapping.get(constr);
-		Unit neg = unit.clone();
-		neg.setNeg();
-		
-		CNF tmp1 = T.clone();
-		tmp1.concat(N.toCNF());
-		CNF tmp2 = tmp1.clone();
+	/*
+	 * Constraints of bias_minus taking both values in the models of T and N, 
+	 * none if T and N are unsatisfiable
+	 */
+	protected ConstraintSet unset(CNF T, ContradictionSet N) {
+		BitSet ids = bias_minus.getConstraints().toBitSet();
+		ArrayList<Unit> candidates = new ArrayList<>();
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			candidates.add(mapping.get(id, false));
+		}
 		
-		tmp1.add(new Clause(unit));
-		tmp2.add(new Clause(neg));
+		Formula F = new Formula();
+		F.addCnf(T);
+		F.addCnf(N.toCNF());
+		Set<Unit> backbone = satSolver.backbone(F, candidates);
 		
-		return satSolver.solve(tmp1) != null && satSolver.solve(tmp2) != null;
+		BitSet res = new BitSet();
+		if (backbone != null) {
+			int i = 0;
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				if (!backbone.contains(candidates.get(i++))) res.set(id);
+			}
+		}
+		return constraintFactory.createSet(res);
 	}
 	
 	protected ACQ_Query irredundantQuery(CNF T) {
@@ -506,9 +703,19 @@ public class ACQ_CONACQ {
 			result = new Contradiction(new ACQ_Network());
 		}
 		else {
+			if (explainPool != null) {
+				checks = new HashMap<>();
+			}
 			ACQ_Network res = quick(b, b, network);
 			assert !isConsistent(res) : "quickExplain must returned inconsistent networks";
 			result = new Contradiction(res);
+			if (checks != null) {
+				// checks not reached are not computed
+				for (CompletableFuture<Boolean> check : checks.values()) {
+					check.cancel(false);
+				}
+				checks = null;
+			}
 		}
 		chrono.stop("quick_explain");
 		return result;
@@ -516,6 +723,9 @@ public class ACQ_CONACQ {
 	
 	protected ACQ_Network quick(ACQ_Network b, ACQ_Network delta, ACQ_Network c) {
 		//System.out.println("In");
+		if (checks != null && delta.size() != 0) {
+			speculate(b, c);
+		}
 		if(delta.size() != 0 && !isConsistent(b)) {
 			return new ACQ_Network(c.getFactory(), c.getFactory().createSet());
 		}
@@ -536,19 +746,53 @@ public class ACQ_CONACQ {
 			i+=1;
 		}
 		
-		ACQ_Network b_union_c1 = new ACQ_Network(constraintFactory, b, bias.network.getVariables());
-		b_union_c1.addAll(c1, true);
+		ACQ_Network b_union_c1 = b.union(c1);
 		ACQ_Network delta2 = quick(b_union_c1, c1, c2);
 		
-		ACQ_Network b_union_delta2 = new ACQ_Network(constraintFactory, b, bias.network.getVariables());
-		b_union_delta2.addAll(delta2, true);
+		ACQ_Network b_union_delta2 = b.union(delta2);
 		ACQ_Network delta1 = quick(b_union_delta2, delta2, c1);
 		
 		delta1.addAll(delta2, true);
 		return delta1;
 	}
 
+	/*
+	 * Submit the consistency checks of b and of the networks quick checks next
+	 * as long as they are consistent: b + c1, then b + c1 + c2_1, ... 
+	 */
+	protected void speculate(ACQ_Network b, ACQ_Network c) {
+		ACQ_Network cur = b;
+		ConstraintSet rest = c.getConstraints();
+		submitCheck(cur);
+		for (int k = 1; k < explainPool.getNbWorkers() && rest.size() > 1; k++) {
+			ACQ_Network next = new ACQ_Network(constraintFactory, cur, bias.network.getVariables());
+			ConstraintSet second = constraintFactory.createSet();
+			int i = 0;
+			int half = rest.size() / 2;
+			for (ACQ_IConstraint constr : rest) {
+				if (i < half) {
+					next.add(constr, true);
+				}
+				else {
+					second.add(constr);
+				}
+				i += 1;
+			}
+			submitCheck(next);
+			cur = next;
+			rest = second;
+		}
+	}
+	
+	protected CompletableFuture<Boolean> submitCheck(ACQ_Network network) {
+		return checks.computeIfAbsent(network.getConstraints().toBitSet(), 
+				(BitSet key) -> explainPool.solve(network));
+	}
+	
 	protected Boolean isConsistent(ACQ_Network network) {
+		if (checks != null) {
+			return submitCheck(network).join();
+		}
 		return constrSolver.solve(network);
 	}
 	
@@ -567,18 +811,37 @@ public class ACQ_CONACQ {
 	protected boolean preprocess(CNF T, ContradictionSet N) throws Exception {
 		boolean collapse = false;
 		boolean stop = false;
-		ArrayList<ACQ_Query> neg = new ArrayList<>();
+		// kappas of the clauses added for negative queries
+		ArrayList<ConstraintSet> neg = new ArrayList<>();
 		
 		/*
-		 * Passive learning
+		 * Passive learning, on chunks of queries of the same scope whose
+		 * kappas are computed column by column. The bias only shrinks, so
+		 * the kappa of a query is its kappa on the bias of its chunk
+		 * restricted to the current bias.
 		 */
-		for (ACQ_Query membership_query : preprocanswered) {
+		QueryBatch chunk = null;
+		ConstraintSet[] kappas = null;
+		int chunkstart = 0;
+		for (int i = 0; i < preprocanswered.size(); i++) {
+			ACQ_Query membership_query = preprocanswered.get(i);
 			if (istimeouted_nothrow()) {
 				this.timeouted = true;
 				break;
 			}
+			if (chunk == null || i - chunkstart == chunk.size()) {
+				if (chunk == null || !chunk.getScope().equals(membership_query.scope)) {
+					chunk = new QueryBatch(membership_query.scope, passivechunk);
+				}
+				chunk.clear();
+				chunkstart = i;
+				for (int j = i; j < preprocanswered.size() && chunk.add(preprocanswered.get(j)); j++);
+				kappas = bias_minus.getKappa(chunk);
+			}
 			if (verbose) System.out.println("[INFO] replay query " + qp.toString(membership_query) + "::" + membership_query.isPositive());
-			ConstraintSet kappa = bias_minus.getKappa(membership_query);
+			ConstraintSet kappa = kappas[i - chunkstart];
+			kappas[i - chunkstart] = null;
+			kappa.retainAll(bias_minus.getConstraints());
 			//assert kappa.size() > 0;
 			if (kappa.size() == 0 && membership_query.isNegative()) {
 				collapse = true;
@@ -601,8 +864,8 @@ public class ACQ_CONACQ {
 				else {
 					// make sure to not add two times the same clause
 					boolean toadd = true;
-					for (ACQ_Query old : neg) {
-						ConstraintSet oldkappa = bias_minus.getKappa(old);
+					for (ConstraintSet oldkappa : neg) {
+						oldkappa.retainAll(bias_minus.getConstraints());
 						if (oldkappa.equals(kappa)) {
 							toadd = false;
 							break;
@@ -634,7 +897,7 @@ public class ACQ_CONACQ {
 							disj.setOriginQuery(membership_query);
 							T.addChecked(disj);
 						}
-						neg.add(membership_query);
+						neg.add(kappa);
 					}
 				}
 			}
@@ -689,8 +952,8 @@ public class ACQ_CONACQ {
 					else {
 						// make sure to not add two times the same clause
 						boolean toadd = true;
-						for (ACQ_Query old : neg) {
-							ConstraintSet oldkappa = bias_minus.getKappa(old);
+						for (ConstraintSet oldkappa : neg) {
+							oldkappa.retainAll(bias_minus.getConstraints());
 							if (oldkappa.equals(kappa)) {
 								toadd = false;
 								break;
@@ -724,7 +987,7 @@ public class ACQ_CONACQ {
 								disj.setOriginQuery(membership_query);
 								T.addChecked(disj);
 							}
-							neg.add(membership_query);
+							neg.add(kappa);
 						}
 					}
 				}
@@ -784,54 +1047,43 @@ public class ACQ_CONACQ {
 			if (membership_query.isEmpty()) {
 				convergence = true;
 			}
-			else {
+			else if (batchsize <= 1) {
 				if (verbose) System.out.print(qp.toString(membership_query));
 				Answer answer = learner.ask(membership_query);
 				if (answer == Answer.UKN) {
 					throw new AnswerTimeoutException("Answer timeouted");
 				}
-				ConstraintSet kappa = bias_minus.getKappa(membership_query);
-				assert kappa.size() > 0;
+				assert bias_minus.getKappa(membership_query).size() > 0;
 				if (verbose) System.out.println("::" + membership_query.isPositive());
-				asked.add(membership_query);
-				assert !asked_debug.contains(membership_query.toString());
-				asked_debug.add(membership_query.toString());
+				learn(membership_query, answer);
+			}
+			else {
+				ArrayList<ACQ_Query> batch;
+				try {
+					chrono.start("gen_query");
+					batch = query_gen_batch(membership_query, T, N);
+					chrono.stop("gen_query");
+				}
+				catch (TimeoutException e) {
+					this.timeouted = true;
+					chrono.stop("gen_query");
+					break;
+				}
 				
-				if(answer == Answer.YES) {
-					for (ACQ_IConstraint c : kappa) {
-						Unit unit = mapping.get(c).clone();
-						unit.setNeg();
-						T.unitPropagate(unit, chrono);
-					}
-					bias_minus.reduce(kappa);
+				// All the queries of the batch are asked at once
+				ArrayList<CompletableFuture<Answer>> answers = new ArrayList<>();
+				for (ACQ_Query query : batch) {
+					answers.add(learner.submit(query));
 				}
-				else {
-					if (kappa.size() == 1) {
-						chrono.stop("first_constr_learned");
-						ACQ_IConstraint c = kappa.get_Constraint(0);
-						Unit unit = mapping.get(c).clone();
-						T.unitPropagate(unit, chrono);
-						Clause unary = new Clause(unit);
-						unary.setOriginQuery(membership_query);
-						T.add(unary);
-						
-						// Remove negation
-						bias_minus.reduce(c.getNegation());
-						unit = mapping.get(c.getNegation()).clone();
-						unit.setNeg();
-						T.unitPropagate(unit, chrono);
-						
-					}
-					else {
-						Clause disj = new Clause();
-						for (ACQ_IConstraint c: kappa) {
-							Unit unit = mapping.get(c).clone();
-							disj.add(unit);
-						}
-						disj.setOriginQuery(membership_query);
-						T.add(disj);
-						//T.unitPropagate(chrono);
+				
+				// and answers are folded in T in generation order
+				for (int i = 0; i < batch.size() && !collapse; i++) {
+					Answer answer = answers.get(i).join();
+					if (answer == Answer.UKN) {
+						throw new AnswerTimeoutException("Answer timeouted");
 					}
+					if (verbose) System.out.println(qp.toString(batch.get(i)) + "::" + batch.get(i).isPositive());
+					collapse = learn(batch.get(i), answer);
 				}
 			}
 		}
@@ -840,8 +1092,9 @@ public class ACQ_CONACQ {
 			if (verbose) System.out.println("[WARNING] Timeouted");
 			/*if (verbose) System.out.print("[INFO] Extract network from T: ");
 			learned_network = new ACQ_Network(constraintFactory, bias.getVars());
+			ConstraintSet unset = unset(T, N);
 			for (ACQ_IConstraint constr: bias_minus.getConstraints()) {
-				if (!isUnset(constr, T, N)) {
+				if (!unset.contains(constr)) {
 					learned_network.add(constr, true);
 				}
 			}
@@ -850,9 +1103,10 @@ public class ACQ_CONACQ {
 		else if (!collapse) {
 			if (verbose) System.out.print("[INFO] Extract network from T: ");
 			CNF F = T.clone();
-			for (ACQ_IConstraint c : bias.getConstraints()) {
-				if (bias_minus.contains(c)) continue;
-				Unit u = mapping.get(c).clone();
+			BitSet removed = bias.getConstraints().toBitSet();
+			removed.andNot(bias_minus.getConstraints().toBitSet());
+			for (int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+				Unit u = mapping.get(id, false).clone();
 				u.setNeg();
 				F.add(new Clause(u));
 			}
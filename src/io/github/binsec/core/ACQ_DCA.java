@@ -34,6 +34,7 @@ import io.github.binsec.core.acqconstraint.ContradictionSet;
 import io.github.binsec.core.acqconstraint.Unit;
 import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
 import io.github.binsec.core.acqsolver.ACQ_ConstraintSolver;
+import io.github.binsec.core.acqsolver.ACQ_SolverPool;
 import io.github.binsec.core.acqsolver.SATSolver;
 import io.github.binsec.core.combinatorial.MARCO;
 import io.github.binsec.core.combinatorial.MSSIter;
@@ -41,6 +42,7 @@ import io.github.binsec.core.learner.ACQ_Bias;
 import io.github.binsec.core.learner.ACQ_Learner;
 import io.github.binsec.core.learner.ACQ_Query;
 import io.github.binsec.core.learner.Answer;
+import io.github.binsec.core.learner.AnswerTimeoutException;
 import io.github.binsec.core.tools.Chrono;
 import io.github.binsec.core.tools.QueryPrinter;
 
@@ -66,6 +68,7 @@ public class ACQ_DCA {
 	protected boolean grow2 = true;
 	public boolean timeouted = false;
 	protected QueryPrinter qp = null;
+	protected ACQ_SolverPool marcoPool = null;
 	
 	public ACQ_DCA(ACQ_Bias bias, ACQ_Bias known, ACQ_Learner learn, SATSolver sat, ACQ_ConstraintSolver solv) {
 		learner = learn;
@@ -122,6 +125,13 @@ public class ACQ_DCA {
 		grow2 = b;
 	}
 	
+	/*
+	 * Solvers used by MARCO to explore several seeds at once
+	 */
+	public void setMarcoPool(ACQ_SolverPool pool) {
+		marcoPool = pool;
+	}
+	
 	public void setLearningTimeout(Long tm) {
 		this.learningtimeout = tm;
 	}
@@ -147,7 +157,7 @@ public class ACQ_DCA {
 		ACQ_Network empty = new ACQ_Network(fact, this.atomic.getNetwork().getVariables());
 		
 		MSSIter iter = new MARCO(atomic, empty, solver, satSolver, mapping, 
-				backgroundKnowledge, knownconstraints, learningtimeout, grow2, chrono);
+				backgroundKnowledge, knownconstraints, learningtimeout, grow2, chrono, marcoPool);
 		
 		while (iter.hasNext()) {
 			if (System.currentTimeMillis() - t0 > learningtimeout) {
@@ -167,6 +177,9 @@ public class ACQ_DCA {
 			if (verbose) System.out.print(qp.toString(query));
 			Answer answer = learner.ask(query);
 			if (verbose) System.out.println("::" + query.isPositive());
+			if (answer == Answer.UKN) {
+				throw new AnswerTimeoutException("Answer timeouted");
+			}
 			if (answer != Answer.YES) {
 				ACQ_IConstraint toadd = removeMSS(query, atomic);
 				res.add(toadd, true);
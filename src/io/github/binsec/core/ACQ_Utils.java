@@ -27,17 +27,20 @@ import java.beans.PropertyChangeListener;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
 
 import org.json.JSONObject;
 
 import io.github.binsec.core.acqconstraint.ACQ_Network;
 import io.github.binsec.core.acqconstraint.ContradictionSet;
 import io.github.binsec.core.acqsolver.ACQ_ConstraintSolver;
+import io.github.binsec.core.acqsolver.ACQ_SolverPool;
 import io.github.binsec.core.acqsolver.SATSolver;
 import io.github.binsec.core.acqvariable.ACQ_CellVariable;
 import io.github.binsec.core.learner.ACQ_Bias;
 import io.github.binsec.core.learner.ACQ_Learner;
 import io.github.binsec.core.learner.ACQ_Query;
+import io.github.binsec.core.learner.Answer;
 import io.github.binsec.core.learner.ACQ_Scope;
 import io.github.binsec.core.learner.AnswerTimeoutException;
 import io.github.binsec.core.learner.ObservedLearner;
@@ -153,6 +156,12 @@ public class ACQ_Utils {
 		
 		acquisition.setQueryPrinter(expe.getQueryPrinter());
 		acquisition.setWeighted(expe.isWeighted());
+		acquisition.setBatchSize(expe.getQueryBatch());
+		ACQ_SolverPool pool = null;
+		if (expe.getExplainWorkers() > 1) {
+			pool = createSolverPool(expe, bias, expe.getExplainWorkers());
+			acquisition.setExplainPool(pool);
+		}
 		
 		/*
 		 * Instantiate Background knowledge
@@ -179,6 +188,7 @@ public class ACQ_Utils {
 			ACQ_CellVariable[] cells = expe.getCells();
 			
 			ArrayList<ACQ_Query> classified = new ArrayList<>();
+			ArrayList<CompletableFuture<Answer>> pending = new ArrayList<>();
 			ACQ_Scope vars = bias.getVars();
 			int nvars = vars.size();
 			
@@ -199,9 +209,11 @@ public class ACQ_Utils {
 					varid += 1;
 				}
 				ACQ_Query query = new ACQ_Query(vars, values);
-				learner.ask(query);
+				// answered concurrently when the learner is a pool
+				pending.add(learner.submit(query));
 				classified.add(query);
 			}
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
 			
 			acquisition.setPreprocAnswered(classified);
 			acquisition.setPassive();
@@ -218,6 +230,9 @@ public class ACQ_Utils {
 		} catch (Exception e) {
 			e.printStackTrace();
 			return null;
+		} finally {
+			learner.close();
+			if (pool != null) pool.shutdown();
 		}
 		chrono.stop("total");
 		
@@ -421,6 +436,11 @@ public class ACQ_Utils {
 		
 		acquisition.setQueryPrinter(expe.getQueryPrinter());
 		acquisition.setGrow2(expe.getGrow2());
+		ACQ_SolverPool pool = null;
+		if (expe.getMarcoWorkers() > 1) {
+			pool = createSolverPool(expe, bias, expe.getMarcoWorkers());
+			acquisition.setMarcoPool(pool);
+		}
 		
 		/*
 		 * Instantiate Background knowledge
@@ -450,6 +470,9 @@ public class ACQ_Utils {
 		} catch (Exception e) {
 			e.printStackTrace();
 			return null;
+		} finally {
+			learner.close();
+			if (pool != null) pool.shutdown();
 		}
 		chrono.stop("total");
 		
@@ -547,6 +570,21 @@ public class ACQ_Utils {
 		return stats;
 	}
 	
+	/*
+	 * Pool of nbworkers solvers set up like the main solver, 
+	 * their events are not observed
+	 */
+	private static ACQ_SolverPool createSolverPool(DefaultExperience expe, ACQ_Bias bias, int nbworkers) {
+		ArrayList<ACQ_ConstraintSolver> solvers = new ArrayList<>();
+		for (int i = 0; i < nbworkers; i++) {
+			ACQ_ConstraintSolver worker = expe.createWorkerSolver();
+			worker.setVars(bias.getVars());
+			worker.setLimit(expe.getTimeout());
+			solvers.add(worker);
+		}
+		return new ACQ_SolverPool(solvers);
+	}
+	
 	private static Float secondToUnit(Float f, TimeUnit unit) {
 		switch (unit) {
 		case S:
@@ -75,6 +75,27 @@ public abstract class DefaultExperience implements IExperience {
 		return false;
 	}
 	
+	/*
+	 * Number of membership queries generated and asked together
+	 */
+	public int getQueryBatch() {
+		return 1;
+	}
+	
+	/*
+	 * Number of consistency checks run concurrently by quickExplain
+	 */
+	public int getExplainWorkers() {
+		return 1;
+	}
+	
+	/*
+	 * Number of seeds explored concurrently by MARCO
+	 */
+	public int getMarcoWorkers() {
+		return 1;
+	}
+	
 	public ACQ_Network simplify(ACQ_Network net, ArrayList<ACQ_Network> muses) {
 		return net;
 	}
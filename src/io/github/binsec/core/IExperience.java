@@ -40,6 +40,14 @@ public interface IExperience {
 	public ACQ_Learner createLearner();
 
 	public ACQ_ConstraintSolver createSolver();
+	
+	/*
+	 * Solver of a worker of a solver pool: it must not replace the 
+	 * main solver of the experience
+	 */
+	public default ACQ_ConstraintSolver createWorkerSolver() {
+		return createSolver();
+	}
 
 	public Long getTimeout();
 	
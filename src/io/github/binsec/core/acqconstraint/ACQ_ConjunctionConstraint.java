@@ -147,12 +147,7 @@ public class ACQ_ConjunctionConstraint extends ACQ_MetaConstraint{
 	
 	@Override
 	public boolean check(ACQ_Query query) {
-		for(ACQ_IConstraint c: constraintSet) {
-			int value[] = c.getProjection(query);
-			if(!((ACQ_Constraint) c).check(value))
-				return false;
-		}
-		return true;
+		return getEvaluator().check(query);
 	}
 
 	@Override
@@ -58,6 +58,14 @@ public abstract class ACQ_Constraint implements ACQ_IConstraint{
      */
     private ACQ_IConstraint cst1 ;
     private ACQ_IConstraint cst2 ;
+    /**
+     * Compiled form of this constraint, built on first use
+     */
+    private volatile ConstraintEvaluator evaluator;
+    /**
+     * Key of this constraint in a constraint factory, built on first use
+     */
+    private ConstraintKey key;
 
 
     /**
@@ -194,6 +202,25 @@ public abstract class ACQ_Constraint implements ACQ_IConstraint{
      */
     public abstract boolean check(ACQ_Query query);
     
+    ConstraintKey getKey() {
+        ConstraintKey res = key;
+        if (res == null) {
+            res = ConstraintKey.compute(this);
+            key = res;
+        }
+        return res;
+    }
+    
+    @Override
+    public ConstraintEvaluator getEvaluator() {
+        ConstraintEvaluator res = evaluator;
+        if (res == null) {
+            res = ConstraintEvaluator.compile(this);
+            evaluator = res;
+        }
+        return res;
+    }
+    
 	@Override
 	public String toString() {
 		return name + Arrays.toString(variables);
@@ -142,12 +142,7 @@ public class ACQ_DisjunctionConstraint extends ACQ_MetaConstraint{
 
 	@Override
 	public boolean check(ACQ_Query query) {
-		for(ACQ_IConstraint c: constraintSet) {
-			int value[] = c.getProjection(query);
-			if(((ACQ_Constraint) c).check(value))
-				return true;
-		}
-		return false;
+		return getEvaluator().check(query);
 	}
 	
 	protected int findIndex(int[] l, int a) {
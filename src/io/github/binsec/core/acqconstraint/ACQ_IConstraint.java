@@ -114,6 +114,13 @@ public interface ACQ_IConstraint extends Comparable<ACQ_IConstraint> {
 
 	public abstract boolean check(ACQ_Query query);
 	
+	/**
+	 * Returns this constraint compiled for repeated checks on queries
+	 * 
+	 * @return evaluator of this constraint
+	 */
+	public ConstraintEvaluator getEvaluator();
+	
 	void setName(String name);
 
 	public String getNegName();
@@ -121,4 +128,14 @@ public interface ACQ_IConstraint extends Comparable<ACQ_IConstraint> {
 	public String toSmtlib();
 	
 	public int getWeight();
+	
+	/**
+	 * Returns the comparison enforced by this constraint when it only compares
+	 * cell variables or a cell variable and a constant
+	 * 
+	 * @return the relation of this constraint or null
+	 */
+	public default CellRelation getCellRelation() {
+		return null;
+	}
 }
@@ -64,7 +64,12 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 	/**
 	 * Set of constraints of this network
 	 */
-	private ConstraintSet constraints;
+	private volatile ConstraintSet constraints;
+	/**
+	 * true while the set of constraints may be shared with another network, 
+	 * it is then copied before being modified
+	 */
+	private volatile boolean shared = false;
 
 	/**
 	 * Empty constructor
@@ -112,7 +117,20 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 	 * @param scope         Scope
 	 */
 	public ACQ_Network(ConstraintFactory factory, ACQ_Network other_network, ACQ_Scope scope) {
-		this(factory, scope, other_network.constraints, false);
+		if (factory == other_network.constraintFactory && scope != null 
+				&& other_network.variables != null && scope.containsAll(other_network.variables)) {
+			// every constraint is kept, the set is shared until one of the networks is modified
+			this.constraintFactory = factory;
+			this.variables = scope;
+			synchronized (other_network) {
+				other_network.shared = true;
+				this.constraints = other_network.constraints;
+			}
+			this.shared = true;
+		}
+		else {
+			init(factory, scope, other_network.constraints, false);
+		}
 	}
 
 	/**
@@ -127,6 +145,11 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 	 */
 	public ACQ_Network(ConstraintFactory factory, ACQ_Scope variables, ConstraintSet constraintSet,
 			boolean add_variables) {
+		init(factory, variables, constraintSet, add_variables);
+	}
+
+	private void init(ConstraintFactory factory, ACQ_Scope variables, ConstraintSet constraintSet,
+			boolean add_variables) {
 		this.constraintFactory = factory;
 		this.constraints = constraintFactory.createSet();
 		if (variables == null) {
@@ -135,7 +158,20 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 			this.variables = variables;
 		}
 		if (constraintSet != null) {
-			constraintSet.forEach((x) -> {
+			/*
+			 * the disjunctions of a family are added without being created 
+			 * when they can all be added
+			 */
+			ConstraintSet others = constraintSet;
+			for (DisjunctionFamily family : factory.getFamilies()) {
+				if (family.isIn(constraintSet) && (add_variables || this.variables.containsAll(family.getScope()))) {
+					family.addAll(this.constraints);
+					this.variables = this.variables.union(family.getScope());
+					if (others == constraintSet) others = factory.createSet(constraintSet);
+					others.constraintSet.clear(family.getFirst(), family.getFirst() + family.size());
+				}
+			}
+			others.forEach((x) -> {
 				add(x, add_variables);
 			});
 		}
@@ -198,10 +234,23 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 		if (force || this.variables.containsAll(cst.getScope())) {
 			this.variables = variables.union(cst.getScope());
 			pcs.firePropertyChange("ADD_VARIABLES", this.variables, cst.getScope());
+			own();
 			this.constraints.add(cst);
-			String threadName = Thread.currentThread().getName();
-			threadName = threadName.replaceAll("-", "_");
-			pcs.firePropertyChange("ADD_CONSTRAINT", threadName, cst);
+			if (pcs.hasListeners(null)) {
+				String threadName = Thread.currentThread().getName();
+				threadName = threadName.replaceAll("-", "_");
+				pcs.firePropertyChange("ADD_CONSTRAINT", threadName, cst);
+			}
+		}
+	}
+
+	/*
+	 * Copies the set of constraints if it may be shared
+	 */
+	private synchronized void own() {
+		if (shared) {
+			this.constraints = constraintFactory.createSet(constraints);
+			shared = false;
 		}
 	}
 
@@ -212,17 +261,38 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 	}
 
 	public void addAll(ACQ_Network constraintNet, boolean force) {
-
+		if (constraintNet.constraintFactory == constraintFactory && constraintNet.variables != null 
+				&& variables.containsAll(constraintNet.variables) && !pcs.hasListeners(null)) {
+			// the scopes of the constraints are in the variables of constraintNet
+			synchronized (this) {
+				own();
+				this.constraints.addAll(constraintNet.constraints);
+			}
+			return;
+		}
 		for (ACQ_IConstraint cst : constraintNet.constraints)
 			this.add(cst, force);
 	}
+
+	/**
+	 * Returns a new network with the constraints and variables of this network
+	 * and of the specified network, sharing the constraints of this network 
+	 * when the other one adds none
+	 * 
+	 * @param other Network of the same factory
+	 * @return union of the two networks
+	 */
+	public ACQ_Network union(ACQ_Network other) {
+		ACQ_Network res = new ACQ_Network(constraintFactory, this, variables.union(other.variables));
+		if (!other.constraints.isSubsetOf(res.constraints)) {
+			res.addAll(other, true);
+		}
+		return res;
+	}
 	
 	public boolean contains(ACQ_IConstraint cst) {
-
-		for (ACQ_IConstraint cst_ : this.constraints)
-			if(cst_.equals(cst))
-				return true;
-		return false;
+		int id = constraintFactory.findConstraintId(cst);
+		return id >= 0 && this.constraints.constraintSet.get(id);
 	}
 
 	/**
@@ -244,7 +314,7 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 	public boolean check(ACQ_Query query) {
 		for (ACQ_IConstraint constraint : constraints) {
 			if (query.getScope().containsAll(constraint.getScope())
-					&& !constraint.check(query)) {
+					&& !constraint.getEvaluator().check(query)) {
 				return false;
 			}
 		}
@@ -288,19 +358,23 @@ public class ACQ_Network implements Iterable<ACQ_IConstraint> {
 		return s;
 	}
 
-	public void removeAll() {
+	synchronized public void removeAll() {
 		while (!constraints.isEmpty())
 			remove(constraints.iterator().next());
 	}
 
-	public void removeAll(ConstraintSet set) {
+	synchronized public void removeAll(ConstraintSet set) {
+		own();
 		constraints.removeAll(set);
-		for (ACQ_IConstraint cst : set)
-			pcs.firePropertyChange("REMOVE_CONSTRAINT", cst, null);
+		if (pcs.hasListeners(null)) {
+			for (ACQ_IConstraint cst : set)
+				pcs.firePropertyChange("REMOVE_CONSTRAINT", cst, null);
+		}
 		pcs.firePropertyChange("EMPTY_NETWORK", null, null);
 	}
 
-	public void remove(ACQ_IConstraint cst) {
+	synchronized public void remove(ACQ_IConstraint cst) {
+		own();
 		this.constraints.remove(cst);
 		pcs.firePropertyChange("REMOVE_CONSTRAINT", cst, null);
 		if (constraints.isEmpty()) {
@@ -91,16 +91,8 @@ public class AliasConstraint extends BinaryConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		IntVar var1 = null;
-		
-		for (int i = 0; i < intVars.length && (var0 == null || var1 == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var1 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var1 = intVars[vars[1].getId()];
 		
 		if (!negated) {
 			cst = model.arithm(var0, "=", var1);
@@ -113,16 +105,8 @@ public class AliasConstraint extends BinaryConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		IntVar var1 = null;
-		
-		for (int i = 0; i < intVars.length && (var0 == null || var1 == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var1 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var1 = intVars[vars[1].getId()];
 		
 		if (!negated) {
 			model.arithm(var0, "=", var1).reifyWith(b);
@@ -131,6 +115,11 @@ public class AliasConstraint extends BinaryConstraint {
 		}
 	}
 	
+	@Override
+	public CellRelation getCellRelation() {
+		return new CellRelation(vars[0].getId(), !negated ? Operator.EQ : Operator.NQ, vars[1].getId());
+	}
+
 	@Override
 	public String getNegName() {
 		if (!negated) {
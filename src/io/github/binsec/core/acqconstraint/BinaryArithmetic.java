@@ -33,7 +33,6 @@ import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 
 import io.github.binsec.core.learner.ACQ_Query;
-import io.github.binsec.core.tools.NameService;
 
 
 /**
@@ -180,14 +179,8 @@ public class BinaryArithmetic extends BinaryConstraint {
 	@Override
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
-		IntVar l=null;
-		IntVar r=null;
-		for(IntVar v : intVars) {
-			if(v.getName().equals(NameService.getVarName(this.getVariables()[0])))
-					l= v;
-			if(v.getName().equals(NameService.getVarName(this.getVariables()[1])))
-				r= v;
-		}
+		IntVar l=intVars[this.getVariables()[0]];
+		IntVar r=intVars[this.getVariables()[1]];
 		if (hasOperation()) {
 
 			if(op1== Operator.Dist) {
@@ -256,20 +249,8 @@ public class BinaryArithmetic extends BinaryConstraint {
 	 */
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b,IntVar... intVars) {
-				int left=0, right=1;
-		if(intVars.length>=this.getVariables().length)
-		{
-			left= this.getVariables()[0];
-			right=this.getVariables()[1];
-		}
-		IntVar l=null;
-		IntVar r=null;
-		for(IntVar v : intVars) {
-			if(v.getName().equals(NameService.getVarName(left)))
-					l= v;
-			if(v.getName().equals(NameService.getVarName(right)))
-				r= v;
-		}
+		IntVar l=intVars[this.getVariables()[0]];
+		IntVar r=intVars[this.getVariables()[1]];
 		if (hasOperation()) {
 			if(op1==Operator.Dist) 
 				
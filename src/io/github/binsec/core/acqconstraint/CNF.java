@@ -23,25 +23,49 @@
 package io.github.binsec.core.acqconstraint;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import io.github.binsec.core.learner.ACQ_Query;
 import io.github.binsec.core.tools.Chrono;
 
+/*
+ * Clauses must not be resized while they belong to a CNF: the number of
+ * non unary clauses and the occurrence lists of the literals are 
+ * maintained on insertion and removal.
+ */
 public class CNF implements Iterable<Clause> {
 	
-	protected Set<Clause> clauses;
+	/*
+	 * Each clause mapped to itself, so that the stored instance of 
+	 * an equal clause can be retrieved
+	 */
+	protected HashMap<Clause, Clause> clauses;
+	protected int nonunary = 0;
+	/*
+	 * Clauses containing each literal, built on first use
+	 */
+	protected HashMap<Integer, Set<Clause>> occurrences = null;
+	/*
+	 * Inserted clauses in order, only kept once enableLog() is called. 
+	 * Subsumed clauses stay in the log when they are removed, any other
+	 * removal starts a new generation with the remaining clauses.
+	 */
+	protected ArrayList<Clause> log = null;
+	protected int generation = 0;
 	
 	public CNF() {
-		clauses = new HashSet<Clause>();
+		clauses = new HashMap<Clause, Clause>();
 	}
 
 	
 	public CNF clone() {
 		CNF res = new CNF();
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			res.add(cl.clone());
 		}
 		return res;
@@ -52,38 +76,133 @@ public class CNF implements Iterable<Clause> {
 	}
 	
 	public void add(Clause clause) {
-		clauses.add(clause);
+		if (clauses.putIfAbsent(clause, clause) == null) {
+			index(clause);
+			if (log != null) log.add(clause);
+		}
 	}
 	
-	public void addChecked(Clause clause) {
-		Iterator<Clause> iter = clauses.iterator();
-		while(iter.hasNext()) {
-			Clause cl = iter.next();
-			if (cl.subsumed(clause)) {
-				return;
+	public void enableLog() {
+		if (log == null) log = new ArrayList<>(clauses.keySet());
+	}
+	
+	/*
+	 * Every clause of the log is either in this CNF or subsumed by one of
+	 * its clauses, null if the log is not enabled
+	 */
+	public List<Clause> getLog() {
+		return log;
+	}
+	
+	public int getGeneration() {
+		return generation;
+	}
+	
+	protected void removed(Clause stored) {
+		unindex(stored);
+		if (log != null) {
+			log = new ArrayList<>(clauses.keySet());
+			generation++;
+		}
+	}
+	
+	protected void removeSubsumed(Clause stored) {
+		clauses.remove(stored);
+		unindex(stored);
+	}
+	
+	/*
+	 * true iff a clause of this CNF contains var or its negation
+	 */
+	public boolean containsVariable(int var) {
+		return !occurrences(var).isEmpty() || !occurrences(-var).isEmpty();
+	}
+	
+	protected void index(Clause clause) {
+		if (clause.getSize() > 1) nonunary++;
+		if (occurrences != null) {
+			for (int lit : clause.getLiterals()) {
+				occurrences.computeIfAbsent(lit, 
+						k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(clause);
 			}
-			else if (clause.subsumed(cl)){
-				iter.remove();
+		}
+	}
+	
+	protected void unindex(Clause clause) {
+		if (clause.getSize() > 1) nonunary--;
+		if (occurrences != null) {
+			for (int lit : clause.getLiterals()) {
+				Set<Clause> occ = occurrences.get(lit);
+				if (occ != null) occ.remove(clause);
 			}
 		}
-		clauses.add(clause);
 	}
 	
-	public Boolean isMonomial() {
-		for (Clause cl : clauses) {
-			int size = cl.getSize();
-			assert(size > 0);
-			if (size > 1) {
-				return false;
+	protected Set<Clause> occurrences(int lit) {
+		if (occurrences == null) {
+			occurrences = new HashMap<>();
+			for (Clause cl : clauses.keySet()) {
+				for (int l : cl.getLiterals()) {
+					occurrences.computeIfAbsent(l, 
+							k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(cl);
+				}
 			}
 		}
-		return true;
+		Set<Clause> res = occurrences.get(lit);
+		return res != null ? res : Collections.emptySet();
+	}
+	
+	/*
+	 * Adds clause unless it is subsumed by a clause of this CNF, and removes
+	 * the clauses it subsumes. Only the clauses sharing a literal with clause
+	 * are visited.
+	 */
+	public void addChecked(Clause clause) {
+		int[] lits = clause.getLiterals();
+		if (lits.length == 0 || clauses.containsKey(new Clause())) {
+			for (Clause cl : new ArrayList<>(clauses.keySet())) {
+				if (cl.subsumed(clause)) {
+					return;
+				}
+				else if (clause.subsumed(cl)){
+					removeSubsumed(cl);
+				}
+			}
+			add(clause);
+			return;
+		}
+
+		// a clause subsuming clause contains one of its literals
+		for (int l : lits) {
+			for (Clause cl : occurrences(l)) {
+				if (cl.subsumed(clause)) {
+					return;
+				}
+			}
+		}
+
+		// a clause subsumed by clause contains all its literals
+		Set<Clause> candidates = occurrences(lits[0]);
+		for (int l : lits) {
+			Set<Clause> occ = occurrences(l);
+			if (occ.size() < candidates.size()) candidates = occ;
+		}
+		for (Clause cl : new ArrayList<>(candidates)) {
+			if (clause.subsumed(cl)) {
+				removeSubsumed(cl);
+			}
+		}
+		add(clause);
+	}
+	
+	public Boolean isMonomial() {
+		return nonunary == 0;
 	}
 	
 	public Clause getUnmarkedNonUnaryClauseMaxWeight() {
 		Clause res = null;
 		Integer maxweight = null; 
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			if (cl.isMarked() == false && cl.getSize()>1) {
 				int clweight = cl.getWeight();
 				if (maxweight == null || clweight > maxweight) {
@@ -104,7 +223,7 @@ public class CNF implements Iterable<Clause> {
 	}
 	
 	public Clause getUnmarkedNonUnaryClause() {
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			if (cl.isMarked() == false && cl.getSize()>1) {
 				return cl;
 			}
@@ -127,22 +246,24 @@ public class CNF implements Iterable<Clause> {
 	}
 	
 	public void removeIfExists(Clause clause) {
-		clauses.remove(clause);
+		Clause stored = clauses.remove(clause);
+		if (stored != null) removed(stored);
 	}
 	
 	public void remove(Clause clause) {
-		boolean removed = clauses.remove(clause);
-		assert removed : "Nothing to remove";
+		Clause stored = clauses.remove(clause);
+		assert stored != null : "Nothing to remove";
+		if (stored != null) removed(stored);
 	}
 	
 	public boolean contains(Clause clause) {
-		return clauses.contains(clause);
+		return clauses.containsKey(clause);
 	}
 	
 	public ACQ_IConstraint[] getMonomialPositive() {
 		assert(this.isMonomial());
 		ArrayList<ACQ_IConstraint> constrs = new ArrayList<ACQ_IConstraint>();
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			Unit unit = cl.get(0);
 			if(!unit.isNeg()) {
 				constrs.add(unit.getConstraint());
@@ -158,7 +279,7 @@ public class CNF implements Iterable<Clause> {
 	public ACQ_IConstraint[] getMonomialNegative() {
 		assert(this.isMonomial());
 		ArrayList<ACQ_IConstraint> constrs = new ArrayList<ACQ_IConstraint>();
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			Unit unit = cl.get(0);
 			if(unit.isNeg()) {
 				constrs.add(unit.getConstraint());
@@ -173,7 +294,7 @@ public class CNF implements Iterable<Clause> {
 	
 	public String toString() {
 		String s = "";
-		for(Clause cl : clauses) {
+		for(Clause cl : clauses.keySet()) {
 			String superscript = "";
 			if (cl.isMarked()) {
 				superscript = "\u207A";
@@ -186,55 +307,41 @@ public class CNF implements Iterable<Clause> {
 		return s;
 	}
 	
+	/*
+	 * Remove the non unary clauses satisfied by unit and the opposite literal 
+	 * from the other ones, until no new unit clause appears. Only the clauses
+	 * containing the propagated literals are visited.
+	 */
 	public void unitPropagate(Unit unit, Chrono chrono) {
 		chrono.start("unit_propagate");
 		
 		if(!this.isMonomial()) {
-			ArrayList<Unit> forcedlist = new ArrayList<Unit>();
-			forcedlist.add(unit);
+			ArrayList<Integer> forcedlist = new ArrayList<Integer>();
+			forcedlist.add(unit.toMiniSat());
 			
 			for (int i = 0; i < forcedlist.size(); i++) {
-				Unit forced = forcedlist.get(i); 
-				boolean change = false;
+				int forced = forcedlist.get(i);
 				
-				CNF toadd = new CNF();
-				Iterator<Clause> iter = clauses.iterator();
-				while(iter.hasNext()) {
-					Clause cl = iter.next();
-					if(cl.getSize() > 1) {
+				for (Clause cl : new ArrayList<>(occurrences(forced))) {
+					if (cl.getSize() > 1) {
+						removeIfExists(cl);
+					}
+				}
+				
+				for (Clause cl : new ArrayList<>(occurrences(-forced))) {
+					if (cl.getSize() > 1) {
+						removeIfExists(cl);
 						Clause newcl = cl.clone();
-						
-						if(cl.contains(forced)) {
-							iter.remove(); // remove cl
-							newcl = null;
-							break;
-						}
-						
-						if (newcl.remove((Unit u) -> {
-							if(forced.equalsConstraint(u) && forced.isNeg() != u.isNeg()) {
-								return true;
-							}
-							else return false;
-						}) == true) {
-							change = true;
-							if (newcl.getSize() == 1) {
-								if (!newcl.get(0).isNeg()) chrono.stop("first_constr_learned");
-								forcedlist.add(newcl.get(0));
-							}
-							
-						}
-						
-						if (newcl != null & change) {
-							iter.remove();
-							newcl.unmark();
-							toadd.add(newcl);
+						newcl.remove((Unit u) -> u.toMiniSat() == -forced);
+						newcl.unmark();
+						if (newcl.getSize() == 1) {
+							if (!newcl.get(0).isNeg()) chrono.stop("first_constr_learned");
+							forcedlist.add(newcl.get(0).toMiniSat());
 						}
+						add(newcl);
 					}
 				}
-				concat(toadd);
 			}
-			
-			
 		}
 			
 		chrono.stop("unit_propagate");
@@ -243,11 +350,31 @@ public class CNF implements Iterable<Clause> {
 
 	@Override
 	public Iterator<Clause> iterator() {
-		return clauses.iterator();
+		Iterator<Clause> iter = clauses.keySet().iterator();
+		return new Iterator<Clause>() {
+			Clause last = null;
+			
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public Clause next() {
+				last = iter.next();
+				return last;
+			}
+			
+			@Override
+			public void remove() {
+				iter.remove();
+				removed(last);
+			}
+		};
 	}
 	
 	public boolean allMarked() {
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			if (cl.getSize() > 1 && !cl.isMarked()) {
 				return false;
 			}
@@ -256,7 +383,7 @@ public class CNF implements Iterable<Clause> {
 	}
 	
 	public void unmarkAll() {
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			if (cl.getSize() > 1) {
 				cl.unmark();
 			}
@@ -265,11 +392,11 @@ public class CNF implements Iterable<Clause> {
 	
 	public ACQ_Query getInconsistency() {
 		assert this.isMonomial();
-		for (Clause cl : clauses) {
+		for (Clause cl : clauses.keySet()) {
 			if (cl.getOriginQuery() == null) continue; // May append in IrredundantQuery
 			Unit unit = cl.get(0);
 			if (!unit.isNeg()) {
-				for (Clause cl2 : clauses) {
+				for (Clause cl2 : clauses.keySet()) {
 					Unit unit2 = cl2.get(0);
 					if (unit2.isNeg() && 
 							unit.getConstraint().equals(unit2.getConstraint())) {
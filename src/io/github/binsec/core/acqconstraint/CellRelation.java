@@ -0,0 +1,61 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqconstraint;
+
+/**
+ * Comparison between two cell variables (left op right) or between 
+ * a cell variable and a constant (left op cst), identified by variable id.
+ * 
+ * Used to decide simple networks without building a choco model.
+ */
+public class CellRelation {
+	
+	public final int left;
+	public final Operator op;
+	public final int right; // -1 when compared to cst
+	public final int cst;
+	
+	/*
+	 * left op right
+	 */
+	public CellRelation(int left, Operator op, int right) {
+		this.left = left;
+		this.op = op;
+		this.right = right;
+		this.cst = 0;
+	}
+	
+	/*
+	 * left op cst
+	 */
+	public CellRelation(Operator op, int left, int cst) {
+		this.left = left;
+		this.op = op;
+		this.right = -1;
+		this.cst = cst;
+	}
+	
+	public boolean isBinary() {
+		return right >= 0;
+	}
+}
@@ -32,8 +32,15 @@ public class Clause implements Iterable<Unit> {
 	
 	protected ArrayList<Unit> units;
 	protected Boolean marked = false;
-	protected int weight = 0;
+	protected Integer weight = null; // computed on demand, the constraints of the units may not exist yet
 	protected ACQ_Query originQuery;
+	/*
+	 * Literals of the units and signature, computed on demand
+	 * and reset when the clause changes
+	 */
+	protected int[] lits = null;
+	protected long signature = 0;
+	protected boolean signed = false;
 	
 	public Clause() {
 		units = new ArrayList<Unit>();
@@ -42,18 +49,22 @@ public class Clause implements Iterable<Unit> {
 	public Clause(Unit unit) {
 		units = new ArrayList<Unit>();
 		units.add(unit);
-		weight += unit.getConstraint().getWeight();
 	}
 	
+	/*
+	 * Units are shared with the copy, they are not modified once in a clause
+	 */
 	public Clause clone() {
 		Clause res = new Clause();
 		res.setOriginQuery(getOriginQuery());
 		if(marked) {
 			res.mark();
 		}
-		for (Unit unit : units) {
-			res.add(unit.clone());
-		}
+		res.units.addAll(units);
+		res.weight = weight;
+		res.lits = lits;
+		res.signature = signature;
+		res.signed = signed;
 		assert(res.getSize() == this.getSize());
 		return res;
 	}
@@ -61,7 +72,50 @@ public class Clause implements Iterable<Unit> {
 	public void add(Unit unit) {
 		assert(unit != null);
 		units.add(unit);
-		weight += unit.getConstraint().getWeight();
+		changed();
+	}
+	
+	protected void changed() {
+		lits = null;
+		signed = false;
+		weight = null;
+	}
+
+	/*
+	 * One bit out of 64 per literal: if this clause subsumes cl then
+	 * the signature of this clause is included in the one of cl
+	 */
+	public long getSignature() {
+		if (!signed) {
+			long res = 0;
+			for (int l : getLiterals()) {
+				res |= 1L << ((l * 0x9E3779B9) >>> 26);
+			}
+			signature = res;
+			signed = true;
+		}
+		return signature;
+	}
+	
+	/*
+	 * MiniSat literal of each unit
+	 */
+	public int[] getLiterals() {
+		if (lits == null) {
+			int[] res = new int[units.size()];
+			for (int i = 0; i < res.length; i++) {
+				res[i] = units.get(i).toMiniSat();
+			}
+			lits = res;
+		}
+		return lits;
+	}
+	
+	public boolean containsLiteral(int lit) {
+		for (int l : getLiterals()) {
+			if (l == lit) return true;
+		}
+		return false;
 	}
 	
 	public Unit get(int index) {
@@ -102,11 +156,11 @@ public class Clause implements Iterable<Unit> {
 		boolean res = false;
 		for (int i=0; i< units.size(); i++) {
 			if (foo.apply(units.get(i))) {
-				Unit rem = units.remove(i);
-				weight -= rem.getConstraint().getWeight();
+				units.remove(i);
 				res = true;
 			}
 		}
+		if (res) changed();
 		return res;
 	}
 	
@@ -129,22 +183,16 @@ public class Clause implements Iterable<Unit> {
 	}
 	
 	public Boolean containsConstraint(Unit unit) {
-		for (Unit u : units) {
-			if (unit.equalsConstraint(u)) {
-				return true;
-			}
+		int var = unit.getMiniSatVar();
+		for (int l : getLiterals()) {
+			if (l == var || l == -var) return true;
 		}
 		return false;
 	}
 	
 	
 	public Boolean contains(Unit unit) {
-		for (Unit u : units) {
-			if (unit.equals(u)) {
-				return true;
-			}
-		}
-		return false;
+		return containsLiteral(unit.toMiniSat());
 	}
 	
 	public String toString() {
@@ -159,14 +207,18 @@ public class Clause implements Iterable<Unit> {
 		return s;
 	}
 	
+	/*
+	 * Sum of the mixed literals: consistent with equals, which ignores the 
+	 * order of the units. The signature only has 64 values per literal.
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		for (Unit unit : units) {
-			result = prime * result + unit.hashCode();
+		int res = 0;
+		for (int l : getLiterals()) {
+			int h = l * 0x9E3779B9;
+			res += h ^ (h >>> 16);
 		}
-		return result;
+		return res;
 	}
 	
 	@Override
@@ -178,23 +230,27 @@ public class Clause implements Iterable<Unit> {
 		if (getClass() != obj.getClass())
 			return false;
 		Clause clause = (Clause) obj;
-		//System.out.println("In Clause.equals()");
-		Clause tmp = clause.clone();
-		for(Unit unit : units) {
-			if(tmp.contains(unit)) {
-				assert	tmp.remove((Unit u) -> {
-					if(u.equals(unit)) return true; else return false;
-				});
-			}
+		if (getSignature() != clause.getSignature())
+			return false;
+		// same set of literals
+		for (int l : clause.getLiterals()) {
+			if (!containsLiteral(l)) return false;
+		}
+		for (int l : getLiterals()) {
+			if (!clause.containsLiteral(l)) return false;
 		}
-		return tmp.isEmpty();
+		return true;
 	}
 
+	/*
+	 * true iff every literal of this clause is in cl
+	 */
 	public boolean subsumed(Clause cl) {
-		for (Unit unit : units) {
-			if (!cl.contains(unit)) return false;
+		if ((getSignature() & ~cl.getSignature()) != 0) return false;
+		for (int l : getLiterals()) {
+			if (!cl.containsLiteral(l)) return false;
 		}
-		return false;
+		return true;
 	}
 	
 	@Override
@@ -203,6 +259,13 @@ public class Clause implements Iterable<Unit> {
 	}
 	
 	public int getWeight() {
+		if (weight == null) {
+			int res = 0;
+			for (Unit unit : units) {
+				res += unit.getConstraint().getWeight();
+			}
+			weight = res;
+		}
 		return this.weight;
 	}
 	
@@ -0,0 +1,226 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqconstraint;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import io.github.binsec.core.acqvariable.ACQ_ValueVariable;
+import io.github.binsec.core.learner.ACQ_Query;
+import io.github.binsec.core.learner.QueryBatch;
+
+/**
+ * Constraint compiled into a flat program over the values of a query: an 
+ * opcode and the variables read by each atom, the atoms of nested 
+ * disjunctions or conjunctions of the same kind being inlined. Evaluating
+ * it does not allocate, except for the constraints without a dedicated
+ * opcode, which are checked as usual.
+ */
+public final class ConstraintEvaluator {
+
+	protected static final byte TRUE = 0;
+	protected static final byte FALSE = 1;
+	protected static final byte UNARY = 2; // check(int) on a variable of the query
+	protected static final byte BINARY = 3; // check(int, int) on two variables of the query
+	protected static final byte RAW_UNARY = 4; // check(int) on values[var]
+	protected static final byte OVERLAP = 5; // check(int, int, int, int) on values[var]
+	protected static final byte GENERIC = 6; // check(ACQ_Query)
+
+	protected final boolean disjunction; // the atoms are or-ed, and-ed otherwise
+	protected final byte[] opcodes;
+	protected final int[][] vars;
+	protected final ACQ_IConstraint[] atoms;
+
+	protected ConstraintEvaluator(ACQ_IConstraint cst) {
+		disjunction = cst instanceof ACQ_DisjunctionConstraint;
+		ArrayList<ACQ_IConstraint> flat = new ArrayList<>();
+		flatten(cst, flat);
+		int n = flat.size();
+		opcodes = new byte[n];
+		vars = new int[n][];
+		atoms = flat.toArray(new ACQ_IConstraint[n]);
+		for (int i = 0; i < n; i++) {
+			compile(i);
+		}
+	}
+
+	public static ConstraintEvaluator compile(ACQ_IConstraint cst) {
+		return new ConstraintEvaluator(cst);
+	}
+
+	/*
+	 * Atoms of cst: the members of the disjunctions (resp. conjunctions)
+	 * nested in a disjunction (resp. conjunction) are inlined
+	 */
+	protected void flatten(ACQ_IConstraint cst, ArrayList<ACQ_IConstraint> flat) {
+		if (disjunction ? cst instanceof ACQ_DisjunctionConstraint : cst instanceof ACQ_ConjunctionConstraint) {
+			for (ACQ_IConstraint c : ((ACQ_MetaConstraint) cst).constraintSet) {
+				flatten(c, flat);
+			}
+		}
+		else {
+			flat.add(cst);
+		}
+	}
+
+	protected void compile(int i) {
+		ACQ_IConstraint c = atoms[i];
+		if (c instanceof TrueConstraint) {
+			opcodes[i] = TRUE;
+		}
+		else if (c instanceof FalseConstraint) {
+			opcodes[i] = FALSE;
+		}
+		else if (c instanceof StrlenEqConstraint) {
+			// reads the size of the cell, see StrlenEqConstraint.getProjection
+			opcodes[i] = RAW_UNARY;
+			vars[i] = new int[] {((ACQ_ValueVariable) ((StrlenEqConstraint) c).vars[0]).id};
+		}
+		else if (c instanceof UnaryConstraint) {
+			opcodes[i] = UNARY;
+			vars[i] = c.getVariables();
+		}
+		else if (c instanceof BinaryConstraint) {
+			opcodes[i] = BINARY;
+			vars[i] = c.getVariables();
+		}
+		else if (c instanceof OverlapConstraint) {
+			opcodes[i] = OVERLAP;
+			vars[i] = c.getVariables();
+		}
+		else {
+			opcodes[i] = GENERIC;
+		}
+	}
+
+	/**
+	 * Checks the compiled constraint on a query
+	 * 
+	 * @param query the query
+	 * @return false if the query violates the constraint
+	 */
+	public boolean check(ACQ_Query query) {
+		for (int i = 0; i < opcodes.length; i++) {
+			if (check(i, query) == disjunction) {
+				return disjunction;
+			}
+		}
+		return !disjunction;
+	}
+
+	protected boolean check(int i, ACQ_Query query) {
+		int[] v = vars[i];
+		switch (opcodes[i]) {
+		case TRUE:
+			return true;
+		case FALSE:
+			return false;
+		case UNARY:
+			return ((UnaryConstraint) atoms[i]).check(query.getValue(v[0]));
+		case BINARY:
+			return ((BinaryConstraint) atoms[i]).check(query.getValue(v[0]), query.getValue(v[1]));
+		case RAW_UNARY:
+			return ((UnaryConstraint) atoms[i]).check(query.values[v[0]]);
+		case OVERLAP:
+			int[] values = query.values;
+			return ((OverlapConstraint) atoms[i]).check(values[v[0]], values[v[1]], values[v[2]], values[v[3]]);
+		default:
+			return atoms[i].check(query);
+		}
+	}
+
+	/**
+	 * Checks the compiled constraint on all the queries of a chunk, one atom
+	 * at a time over the columns of its variables
+	 * 
+	 * @param batch the queries
+	 * @return the rows of the queries violating the constraint
+	 */
+	public BitSet violated(QueryBatch batch) {
+		int n = batch.size();
+		BitSet res = new BitSet(n);
+		if (disjunction) res.set(0, n);
+		BitSet atom = new BitSet(n);
+		for (int i = 0; i < opcodes.length; i++) {
+			atom.clear();
+			violated(i, batch, atom);
+			if (disjunction) {
+				res.and(atom);
+				if (res.isEmpty()) break;
+			}
+			else {
+				res.or(atom);
+			}
+		}
+		return res;
+	}
+
+	protected void violated(int i, QueryBatch batch, BitSet res) {
+		int n = batch.size();
+		int[] v = vars[i];
+		switch (opcodes[i]) {
+		case TRUE:
+			break;
+		case FALSE:
+			res.set(0, n);
+			break;
+		case UNARY: {
+			UnaryConstraint c = (UnaryConstraint) atoms[i];
+			int[] col = batch.getColumn(v[0]);
+			for (int r = 0; r < n; r++) {
+				if (!c.check(col[r])) res.set(r);
+			}
+			break;
+		}
+		case BINARY: {
+			BinaryConstraint c = (BinaryConstraint) atoms[i];
+			int[] col0 = batch.getColumn(v[0]), col1 = batch.getColumn(v[1]);
+			for (int r = 0; r < n; r++) {
+				if (!c.check(col0[r], col1[r])) res.set(r);
+			}
+			break;
+		}
+		case RAW_UNARY: {
+			UnaryConstraint c = (UnaryConstraint) atoms[i];
+			int[] col = batch.getRawColumn(v[0]);
+			for (int r = 0; r < n; r++) {
+				if (!c.check(col[r])) res.set(r);
+			}
+			break;
+		}
+		case OVERLAP: {
+			OverlapConstraint c = (OverlapConstraint) atoms[i];
+			int[] col0 = batch.getRawColumn(v[0]), col1 = batch.getRawColumn(v[1]);
+			int[] col2 = batch.getRawColumn(v[2]), col3 = batch.getRawColumn(v[3]);
+			for (int r = 0; r < n; r++) {
+				if (!c.check(col0[r], col1[r], col2[r], col3[r])) res.set(r);
+			}
+			break;
+		}
+		default:
+			for (int r = 0; r < n; r++) {
+				if (!atoms[i].check(batch.getQuery(r))) res.set(r);
+			}
+		}
+	}
+}
@@ -22,14 +22,18 @@
 
 package io.github.binsec.core.acqconstraint;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import io.github.binsec.core.ACQ_Utils;
 import io.github.binsec.core.learner.ACQ_Query;
+import io.github.binsec.core.learner.QueryBatch;
 
 
 /**
@@ -43,27 +47,44 @@ import io.github.binsec.core.learner.ACQ_Query;
  */
 public class ConstraintFactory {
 	/*
-	 * mapping constraint id (String) to numeral (Integer)
+	 * mapping constraint key to numeral (Integer)
 	 */
-	HashMap<String, Integer> constraintsIndex = new HashMap<>();
-	ArrayList<ACQ_IConstraint> constraintArray = new ArrayList<>();
+	ConcurrentHashMap<ConstraintKey, Integer> constraintsIndex = new ConcurrentHashMap<>();
+	/*
+	 * Constraint of each id, replaced by a larger copy when it is full. 
+	 * Registration is synchronized, lookups are not: the elements are 
+	 * written and read with volatile semantics so that a constraint is 
+	 * fully built when it is read.
+	 */
+	volatile AtomicReferenceArray<ACQ_IConstraint> constraintArray = new AtomicReferenceArray<>(64);
+	volatile int nbConstraints = 0;
+	/*
+	 * Ids of the disjunctions of a family are reserved at once, 
+	 * their constraints are null until they are first accessed
+	 */
+	CopyOnWriteArrayList<DisjunctionFamily> families = new CopyOnWriteArrayList<>();
+	/*
+	 * Ids of the registered constraints of each scope. The bitsets are 
+	 * replaced rather than modified, so that they are read without locking.
+	 */
+	ConcurrentHashMap<BitSet, BitSet> scopes = new ConcurrentHashMap<>();
 
 	public ConstraintFactory() {
 	}
 
 	/*
-	 * Each constraint is associated to an integer constraint .toString() is
-	 * used as identifier TODO a ACQ_IConstraint witch deliver an ID string ?
+	 * Each constraint is associated to an integer, its ConstraintKey is used
+	 * as identifier
 	 */
 	public synchronized int registerConstraint(ACQ_IConstraint cst) {
-		Integer id = constraintsIndex.get(cst.toString());
+		ConstraintKey key = ConstraintKey.of(cst);
+		Integer id = constraintsIndex.get(key);
 		if (id == null) // register new constraint
 		{
-			constraintArray.add(cst);
-			int newId = constraintArray.size() - 1;
-			int size = constraintsIndex.size();
-			constraintsIndex.put(cst.toString(), newId);
-			if (size == constraintsIndex.size())
+			int newId = reserve(1);
+			constraintArray.set(newId, cst);
+			indexScope(cst, newId);
+			if (constraintsIndex.put(key, newId) != null)
 				new Exception().printStackTrace();
 			return newId;
 		} else { // replace constraint
@@ -72,19 +93,92 @@ public class ConstraintFactory {
 		return id;
 	}
 
+	/*
+	 * First of n new ids, without constraints yet
+	 */
+	protected synchronized int reserve(int n) {
+		int first = nbConstraints;
+		AtomicReferenceArray<ACQ_IConstraint> array = constraintArray;
+		if (first + n > array.length()) {
+			AtomicReferenceArray<ACQ_IConstraint> res = new AtomicReferenceArray<>(Math.max(2 * array.length(), first + n));
+			for (int i = 0; i < first; i++) {
+				res.set(i, array.get(i));
+			}
+			constraintArray = res;
+		}
+		nbConstraints = first + n;
+		return first;
+	}
+
+	protected void indexScope(ACQ_IConstraint cst, int id) {
+		BitSet scope = (BitSet) cst.getScope().getVariables().clone();
+		BitSet ids = scopes.get(scope);
+		BitSet res = ids == null ? new BitSet() : (BitSet) ids.clone();
+		res.set(id);
+		scopes.put(scope, res);
+	}
+
 	/*
 	 * constraint can be registerd lazily
 	 */
 	public int getConstraintId(ACQ_IConstraint cst) {
-		Integer id = constraintsIndex.get(cst.toString());
-		if (id != null)
+		int id = findConstraintId(cst);
+		if (id >= 0)
 			return id;
 		else
 			return registerConstraint(cst);
 	}
 
+	/*
+	 * Id of cst without registering it, -1 if it is unknown
+	 */
+	public int findConstraintId(ACQ_IConstraint cst) {
+		ConstraintKey key = ConstraintKey.of(cst);
+		Integer id = constraintsIndex.get(key);
+		if (id != null)
+			return id;
+		for (DisjunctionFamily family : families) {
+			int fid = family.idOf(cst);
+			if (fid >= 0) {
+				constraintsIndex.putIfAbsent(key, fid);
+				return fid;
+			}
+		}
+		return -1;
+	}
+
+	public List<DisjunctionFamily> getFamilies() {
+		return families;
+	}
+
+	/*
+	 * Reserves the ids of the disjunctions of family
+	 */
+	public synchronized void register(DisjunctionFamily family) {
+		assert family.first < 0 : "family already registered";
+		family.first = reserve(family.size());
+		families.add(family);
+	}
+
 	public ACQ_IConstraint getConstraint(int id) {
-		return constraintArray.get(id);
+		ACQ_IConstraint res = constraintArray.get(id);
+		return res != null ? res : create(id);
+	}
+
+	protected synchronized ACQ_IConstraint create(int id) {
+		ACQ_IConstraint res = constraintArray.get(id);
+		if (res == null) {
+			for (DisjunctionFamily family : families) {
+				if (family.contains(id)) {
+					res = family.make(id - family.first);
+					break;
+				}
+			}
+			assert res != null : "no constraint with id " + id;
+			constraintArray.set(id, res);
+			constraintsIndex.putIfAbsent(ConstraintKey.of(res), id);
+		}
+		return res;
 	}
 
 	/*
@@ -102,6 +196,15 @@ public class ConstraintFactory {
 		return new ConstraintSet(anotherSet);
 	}
 
+	/*
+	 * Set of the constraints of ids, without creating them
+	 */
+	public ConstraintSet createSet(BitSet ids) {
+		ConstraintSet res = new ConstraintSet();
+		res.constraintSet.or(ids);
+		return res;
+	}
+
 	public class ConstraintSet implements Iterable<ACQ_IConstraint> {
 		BitSet constraintSet = null;
 
@@ -129,15 +232,128 @@ public class ConstraintFactory {
 		 */
 		public ConstraintSet getKappa(ACQ_Query query_bgd) {
 			ConstraintSet set = createSet();
-			for (ACQ_IConstraint cst : this) {
-				if (query_bgd.scope.containsAll(cst.getScope())) {
-					if (!((ACQ_Constraint) cst).check(query_bgd)) {
-						set.add(cst);
+			BitSet vars = query_bgd.scope.getVariables();
+			// constraints evaluated on query_bgd, and the violated ones
+			BitSet checked = new BitSet();
+			BitSet violated = new BitSet();
+			
+			// registered constraints, by scope
+			for (Map.Entry<BitSet, BitSet> entry : scopes.entrySet()) {
+				if (!entry.getValue().intersects(constraintSet)) continue;
+				BitSet outside = (BitSet) entry.getKey().clone();
+				outside.andNot(vars);
+				if (!outside.isEmpty()) continue;
+				
+				BitSet ids = (BitSet) entry.getValue().clone();
+				ids.and(constraintSet);
+				for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+					checked.set(id);
+					if (!getConstraint(id).getEvaluator().check(query_bgd)) {
+						violated.set(id);
+						set.constraintSet.set(id);
 					}
 				}
 			}
+			
+			// disjunctions of the families, from their base constraints
+			for (DisjunctionFamily family : families) {
+				if (family.intersects(this)) {
+					family.kappa(query_bgd, this, set, checked, violated);
+				}
+			}
 			return set;
 		}
+		
+		/**
+		 * Returns the sets of constraints violated by each query of a chunk,
+		 * each constraint being evaluated on the whole chunk at once
+		 * 
+		 * @param batch
+		 *            Positive or negative examples of the same scope
+		 * @return set of constraints violated by the query of each row
+		 */
+		public ConstraintSet[] getKappa(QueryBatch batch) {
+			int n = batch.size();
+			ConstraintSet[] sets = new ConstraintSet[n];
+			BitSet[] violated = new BitSet[n];
+			for (int r = 0; r < n; r++) {
+				sets[r] = createSet();
+				violated[r] = new BitSet();
+			}
+			BitSet vars = batch.getScope().getVariables();
+			BitSet checked = new BitSet();
+			
+			for (Map.Entry<BitSet, BitSet> entry : scopes.entrySet()) {
+				if (!entry.getValue().intersects(constraintSet)) continue;
+				BitSet outside = (BitSet) entry.getKey().clone();
+				outside.andNot(vars);
+				if (!outside.isEmpty()) continue;
+				
+				BitSet ids = (BitSet) entry.getValue().clone();
+				ids.and(constraintSet);
+				for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+					checked.set(id);
+					BitSet rows = getConstraint(id).getEvaluator().violated(batch);
+					for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+						violated[r].set(id);
+						sets[r].constraintSet.set(id);
+					}
+				}
+			}
+			
+			for (DisjunctionFamily family : families) {
+				if (family.intersects(this)) {
+					family.kappa(batch, this, sets, checked, violated);
+				}
+			}
+			return sets;
+		}
+		
+		/*
+		 * Constraints of this set already created
+		 */
+		public ConstraintSet created() {
+			ConstraintSet res = createSet();
+			for (int id = constraintSet.nextSetBit(0); id >= 0; id = constraintSet.nextSetBit(id + 1)) {
+				if (constraintArray.get(id) != null) res.constraintSet.set(id);
+			}
+			return res;
+		}
+		
+		/*
+		 * Smallest arity of the constraints of this set, without creating 
+		 * the disjunctions of the families it contains entirely
+		 */
+		public int getMinArity() {
+			int res = Integer.MAX_VALUE;
+			for (ACQ_IConstraint cst : notInFamilies()) {
+				res = Math.min(res, cst.getArity());
+			}
+			for (DisjunctionFamily family : families) {
+				if (family.isIn(this)) res = Math.min(res, family.getMinArity());
+			}
+			return res;
+		}
+		
+		public int getMaxArity() {
+			int res = Integer.MIN_VALUE;
+			for (ACQ_IConstraint cst : notInFamilies()) {
+				res = Math.max(res, cst.getArity());
+			}
+			for (DisjunctionFamily family : families) {
+				if (family.isIn(this)) res = Math.max(res, family.getMaxArity());
+			}
+			return res;
+		}
+		
+		protected ConstraintSet notInFamilies() {
+			ConstraintSet res = createSet(this);
+			for (DisjunctionFamily family : families) {
+				if (family.isIn(this)) 
+					res.constraintSet.clear(family.getFirst(), family.getFirst() + family.size());
+			}
+			return res;
+		}
 
 		public int[] getVariables() {
 			BitSet bs=new BitSet();
@@ -196,7 +412,7 @@ public class ConstraintFactory {
 				tmp.clear(nbs);
 			}
 			int realid = tmp.nextSetBit(0);
-			return constraintArray.get(realid);
+			return getConstraint(realid);
 		}
 		
 		/**
@@ -215,6 +431,21 @@ public class ConstraintFactory {
 		public void retainAll(ConstraintSet other_set) {
 			constraintSet.and(other_set.constraintSet);
 		}
+		
+		protected ConstraintFactory factory() {
+			return ConstraintFactory.this;
+		}
+		
+		/*
+		 * true iff every constraint of this set is in other_set, 
+		 * both sets coming from the same factory
+		 */
+		public boolean isSubsetOf(ConstraintSet other_set) {
+			assert other_set.factory() == ConstraintFactory.this;
+			BitSet tmp = (BitSet) constraintSet.clone();
+			tmp.andNot(other_set.constraintSet);
+			return tmp.isEmpty();
+		}
 
 		/**
 		 * Checks if this set of constraints is empty
@@ -254,6 +485,15 @@ public class ConstraintFactory {
 			constraintSet.or(set.constraintSet);
 		}
 
+		/**
+		 * Returns the ids of the constraints of this set
+		 * 
+		 * @return copy of the underlying bitset
+		 */
+		public BitSet toBitSet() {
+			return (BitSet) constraintSet.clone();
+		}
+
 		@Override
 		public String toString() {
 			return "ConstraintSet [constraints=" + constraintSet + "]";
@@ -364,6 +604,10 @@ public class ConstraintFactory {
 				return false;
 			ConstraintSet other = (ConstraintSet) obj;
 			
+			if (other.factory() == ConstraintFactory.this) {
+				return constraintSet.equals(other.constraintSet);
+			}
+			
 			if (this.size() != other.size()) {
 				return false;
 			}
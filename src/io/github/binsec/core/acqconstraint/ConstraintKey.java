@@ -0,0 +1,114 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqconstraint;
+
+import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
+
+/**
+ * Key of a constraint in the index of a ConstraintFactory. Disjunctions and 
+ * conjunctions are identified by the keys of their members, whatever their
+ * order, the other constraints by their text. A constraint computes its key
+ * once, so looking it up again does not build any string.
+ */
+final class ConstraintKey {
+
+	private static final int ATOM = 0;
+	private static final int DISJUNCTION = 1;
+	private static final int CONJUNCTION = 2;
+
+	private final int kind;
+	private final String text; // atoms only
+	private final ConstraintKey[] members; // disjunctions and conjunctions only
+	private final int hash;
+
+	private ConstraintKey(String text) {
+		this.kind = ATOM;
+		this.text = text;
+		this.members = null;
+		this.hash = text.hashCode();
+	}
+
+	private ConstraintKey(int kind, ConstraintKey[] members) {
+		this.kind = kind;
+		this.text = null;
+		this.members = members;
+		int h = 0;
+		for (ConstraintKey m : members) {
+			h += m.hash; // independent of the order of the members
+		}
+		this.hash = 31 * (31 * kind + members.length) + h;
+	}
+
+	static ConstraintKey of(ACQ_IConstraint cst) {
+		if (cst instanceof ACQ_Constraint) {
+			return ((ACQ_Constraint) cst).getKey();
+		}
+		return compute(cst);
+	}
+
+	static ConstraintKey compute(ACQ_IConstraint cst) {
+		if (cst instanceof ACQ_DisjunctionConstraint || cst instanceof ACQ_ConjunctionConstraint) {
+			ConstraintSet set = ((ACQ_MetaConstraint) cst).constraintSet;
+			ConstraintKey[] members = new ConstraintKey[set.size()];
+			int i = 0;
+			for (ACQ_IConstraint c : set) {
+				members[i++] = of(c);
+			}
+			return new ConstraintKey(cst instanceof ACQ_DisjunctionConstraint ? DISJUNCTION : CONJUNCTION, members);
+		}
+		return new ConstraintKey(cst.toString());
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof ConstraintKey))
+			return false;
+		ConstraintKey other = (ConstraintKey) obj;
+		if (hash != other.hash || kind != other.kind)
+			return false;
+		if (kind == ATOM)
+			return text.equals(other.text);
+		if (members.length != other.members.length)
+			return false;
+		// the members of a constraint are distinct
+		for (ConstraintKey m : members) {
+			boolean found = false;
+			for (ConstraintKey o : other.members) {
+				if (m.equals(o)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found)
+				return false;
+		}
+		return true;
+	}
+}
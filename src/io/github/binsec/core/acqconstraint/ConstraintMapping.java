@@ -23,22 +23,60 @@
 package io.github.binsec.core.acqconstraint;
 
 import java.util.HashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class ConstraintMapping {
 	protected HashMap<ACQ_IConstraint, Unit> mapping;
+	/*
+	 * Creates the unit of a constraint without one, if any
+	 */
+	protected Function<ACQ_IConstraint, Unit> allocator = null;
+	/*
+	 * Units of the constraints of the factory by id, and of their negations,
+	 * created by idAllocator without creating the constraints
+	 */
+	protected HashMap<Integer, Unit> ids = new HashMap<>();
+	protected HashMap<Integer, Unit> negIds = new HashMap<>();
+	protected BiFunction<Integer, Boolean, Unit> idAllocator = null;
 	
 	public ConstraintMapping() {
 		mapping = new HashMap<ACQ_IConstraint, Unit>();
 	}
 	
-	public void add(ACQ_IConstraint constr, Unit unit) {
+	public ConstraintMapping(Function<ACQ_IConstraint, Unit> allocator, BiFunction<Integer, Boolean, Unit> idAllocator) {
+		this();
+		this.allocator = allocator;
+		this.idAllocator = idAllocator;
+	}
+	
+	public synchronized void add(ACQ_IConstraint constr, Unit unit) {
 		assert(!unit.isNeg());
 		Unit u = mapping.put(constr, unit);
 		assert u == null: "mapping where already containing an entry for constr"; 
 	}
 	
-	public Unit get(ACQ_IConstraint constr) {
+	public synchronized Unit get(ACQ_IConstraint constr) {
 		Unit res = mapping.get(constr);
+		if (res == null && allocator != null) {
+			res = allocator.apply(constr);
+			mapping.put(constr, res);
+		}
+		assert(!res.isNeg());
+		return res;
+	}
+	
+	/*
+	 * Unit of the constraint of id, or of its negation if neg
+	 */
+	public synchronized Unit get(int id, boolean neg) {
+		HashMap<Integer, Unit> units = neg ? negIds : ids;
+		Unit res = units.get(id);
+		if (res == null) {
+			assert idAllocator != null : "no unit by id";
+			res = idAllocator.apply(id, neg);
+			units.put(id, res);
+		}
 		assert(!res.isNeg());
 		return res;
 	}
@@ -33,6 +33,7 @@ public class ContradictionSet {
 	
 	public ContradictionSet(ConstraintFactory factory, ACQ_Scope scope, ConstraintMapping mapping) {
 		this.cnf = new CNF();
+		this.cnf.enableLog(); // N only grows, solvers can add its new clauses only
 		this.factory = factory;
 		this.scope = scope;
 		this.mapping = mapping;
@@ -50,8 +51,27 @@ public class ContradictionSet {
 		cnf.unitPropagate(unit, chrono);
 	}
 	
+	/*
+	 * Cores subsumed by a known one are dropped, and the known cores 
+	 * subsumed by contr are removed
+	 */
 	public void add(Contradiction contr) {
-		cnf.add(contr.toClause(mapping));
+		cnf.addChecked(contr.toClause(mapping));
+	}
+	
+	/*
+	 * Same as add for the contradiction of the constraint of id and its 
+	 * negation, without creating them
+	 */
+	public void addNegation(int id) {
+		Clause cl = new Clause();
+		Unit pos = mapping.get(id, false).clone();
+		pos.setNeg();
+		cl.add(pos);
+		Unit neg = mapping.get(id, true).clone();
+		neg.setNeg();
+		cl.add(neg);
+		cnf.addChecked(cl);
 	}
 	
 	public void addFact(Contradiction contr) {
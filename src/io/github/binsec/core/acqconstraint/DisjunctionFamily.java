@@ -0,0 +1,349 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqconstraint;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
+import io.github.binsec.core.learner.ACQ_Query;
+import io.github.binsec.core.learner.ACQ_Scope;
+import io.github.binsec.core.learner.QueryBatch;
+
+/**
+ * Disjunctions of arity constraints among a list of base constraints,
+ * without a constraint and its negation.
+ *
+ * The disjunctions are ranked in the lexicographic order of the indices of 
+ * their constraints in base, as enumerated by CombinationIterator, and the
+ * disjunction of rank r has the id first + r in the factory. The factory 
+ * only creates it when it is first accessed.
+ */
+public class DisjunctionFamily {
+
+	protected final ConstraintFactory factory;
+	protected final ACQ_IConstraint[] base;
+	protected final HashMap<Integer, Integer> position = new HashMap<>(); // factory id -> index in base
+	protected final int[] ids; // index in base -> factory id
+	protected final boolean[][] conflict; // base[i] is the negation of base[j]
+	protected final int arity;
+	protected final boolean weighted;
+	protected final long[][] binom;
+	protected final int size;
+	protected final BitSet valid = new BitSet(); // ranks of the disjunctions without a constraint and its negation
+	protected final BitSet scope = new BitSet(); // variables of these disjunctions
+	protected final long[] words; // valid as words, with counts[w] valid ranks before word w
+	protected final int[] counts;
+	protected int first = -1;
+	protected int minArity = Integer.MAX_VALUE;
+	protected int maxArity = Integer.MIN_VALUE;
+
+	public DisjunctionFamily(ConstraintFactory factory, ConstraintSet constraints, int arity, boolean weighted) {
+		this.factory = factory;
+		this.base = new ACQ_IConstraint[constraints.size()];
+		this.ids = new int[base.length];
+		int i = 0;
+		for (ACQ_IConstraint c : constraints) {
+			ids[i] = factory.getConstraintId(c);
+			position.put(ids[i], i);
+			base[i++] = c;
+		}
+		this.arity = arity;
+		this.weighted = weighted;
+
+		int n = base.length;
+		conflict = new boolean[n][n];
+		for (int j = 0; j < n; j++) {
+			ACQ_IConstraint neg = base[j].getNegation();
+			for (i = 0; i < n; i++) {
+				conflict[i][j] = base[i].equals(neg);
+			}
+		}
+
+		binom = new long[n + 1][arity + 1];
+		for (int m = 0; m <= n; m++) {
+			binom[m][0] = 1;
+			for (int k = 1; k <= arity && k <= m; k++) {
+				binom[m][k] = binom[m-1][k-1] + binom[m-1][k];
+			}
+		}
+		assert binom[n][arity] < Integer.MAX_VALUE : "too many disjunctions";
+		size = (int) binom[n][arity];
+		if (arity <= n) enumerate();
+		words = valid.toLongArray();
+		counts = new int[words.length + 1];
+		for (int w = 0; w < words.length; w++) {
+			counts[w+1] = counts[w] + Long.bitCount(words[w]);
+		}
+	}
+
+	/*
+	 * Ranks, variables and arities of the disjunctions without a constraint and its negation
+	 */
+	protected void enumerate() {
+		int n = base.length;
+
+		BitSet[] scopes = new BitSet[n];
+		for (int i = 0; i < n; i++) {
+			scopes[i] = base[i].getScope().getVariables();
+		}
+		BitSet vars = new BitSet();
+		int[] combo = start(arity);
+		do {
+			if (isValid(combo)) {
+				valid.set(rank(combo));
+				vars.clear();
+				for (int c : combo) vars.or(scopes[c]);
+				scope.or(vars);
+				minArity = Math.min(minArity, vars.cardinality());
+				maxArity = Math.max(maxArity, vars.cardinality());
+			}
+		} while (next(combo, n));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getFirst() {
+		return first;
+	}
+
+	public boolean contains(int id) {
+		return first >= 0 && id >= first && id < first + size;
+	}
+
+	/*
+	 * Number of disjunctions of this family
+	 */
+	public int getValidCount() {
+		return counts[words.length];
+	}
+
+	/*
+	 * Number of disjunctions of this family with a smaller id than id
+	 */
+	public int indexOf(int id) {
+		assert contains(id);
+		int rank = id - first;
+		int w = rank >>> 6;
+		if (w >= words.length) return counts[words.length];
+		return counts[w] + Long.bitCount(words[w] & ((1L << (rank & 63)) - 1));
+	}
+
+	public ACQ_Scope getScope() {
+		return new ACQ_Scope((BitSet) scope.clone());
+	}
+
+	public int getMinArity() {
+		return minArity;
+	}
+
+	public int getMaxArity() {
+		return maxArity;
+	}
+
+	/*
+	 * The lexicographic rank of c_0 < ... < c_k-1 is size - 1 minus the 
+	 * colexicographic rank of n-1-c_k-1 < ... < n-1-c_0
+	 */
+	protected int rank(int[] combo) {
+		int n = base.length;
+		long colex = 0;
+		for (int i = 0; i < arity; i++) {
+			colex += binom[n - 1 - combo[arity - 1 - i]][i+1];
+		}
+		return (int) (size - 1 - colex);
+	}
+
+	protected int[] unrank(int rank) {
+		int n = base.length;
+		int[] res = new int[arity];
+		long r = size - 1 - rank;
+		int c = n;
+		for (int i = arity - 1; i >= 0; i--) {
+			do {
+				c--;
+			} while (binom[c][i+1] > r);
+			res[arity - 1 - i] = n - 1 - c;
+			r -= binom[c][i+1];
+		}
+		return res;
+	}
+
+	protected boolean isValid(int[] combo) {
+		for (int i = 0; i < combo.length - 1; i++) {
+			for (int j = i+1; j < combo.length; j++) {
+				if (conflict[combo[i]][combo[j]]) return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Next combination of combo.length indices among n in lexicographic order,
+	 * false after the last one
+	 */
+	protected static boolean next(int[] combo, int n) {
+		int k = combo.length;
+		int i = k - 1;
+		while (i >= 0 && combo[i] == n - k + i) i--;
+		if (i < 0) return false;
+		combo[i]++;
+		for (int j = i + 1; j < k; j++) {
+			combo[j] = combo[j-1] + 1;
+		}
+		return true;
+	}
+
+	protected static int[] start(int k) {
+		int[] res = new int[k];
+		for (int i = 0; i < k; i++) res[i] = i;
+		return res;
+	}
+
+	/*
+	 * Adds the valid disjunctions to set without creating them
+	 */
+	public void addAll(ConstraintSet set) {
+		assert first >= 0 : "family not registered";
+		for (int r = valid.nextSetBit(0); r >= 0; r = valid.nextSetBit(r + 1)) {
+			set.constraintSet.set(first + r);
+		}
+	}
+
+	/*
+	 * true iff set contains exactly the disjunctions of this family added by addAll
+	 */
+	public boolean isIn(ConstraintSet set) {
+		return first >= 0 && set.constraintSet.get(first, first + size).equals(valid);
+	}
+
+	/*
+	 * true iff set contains a disjunction of this family
+	 */
+	public boolean intersects(ConstraintSet set) {
+		if (first < 0) return false;
+		int next = set.constraintSet.nextSetBit(first);
+		return next >= 0 && next < first + size;
+	}
+
+	/*
+	 * Disjunction of rank rank, as built by the bias
+	 */
+	protected ACQ_IConstraint make(int rank) {
+		int[] combo = unrank(rank);
+		ConstraintSet set = factory.createSet();
+		int weight = base[combo[0]].getWeight();
+		for (int c : combo) {
+			set.add(base[c]);
+			weight = Math.max(weight, base[c].getWeight());
+		}
+		return weighted ? new ACQ_DisjunctionConstraint(factory, set, weight) :
+			new ACQ_DisjunctionConstraint(factory, set);
+	}
+
+	/*
+	 * Id of cst in this family, -1 if it is not one of its disjunctions
+	 */
+	protected int idOf(ACQ_IConstraint cst) {
+		if (first < 0 || !(cst instanceof ACQ_DisjunctionConstraint)) return -1;
+		ConstraintSet set = ((ACQ_DisjunctionConstraint) cst).constraintSet;
+		if (set.size() != arity) return -1;
+		int[] combo = new int[arity];
+		int i = 0;
+		for (ACQ_IConstraint c : set) {
+			// set may come from another factory
+			Integer pos = position.get(factory.findConstraintId(c));
+			if (pos == null) return -1;
+			combo[i++] = pos;
+		}
+		Arrays.sort(combo);
+		return isValid(combo) ? first + rank(combo) : -1;
+	}
+
+	/*
+	 * Adds to kappa the disjunctions of set violated by query: the ones
+	 * whose constraints are all in the scope of query and all violated.
+	 * The base constraints already in checked are not evaluated again, 
+	 * the ones in violated are the ones violated by query.
+	 */
+	protected void kappa(ACQ_Query query, ConstraintSet set, ConstraintSet kappa, BitSet checked, BitSet violated) {
+		for (int i = 0; i < base.length; i++) {
+			int id = ids[i];
+			if (!checked.get(id)) {
+				ACQ_IConstraint c = base[i];
+				checked.set(id);
+				if (query.scope.containsAll(c.getScope()) && !c.getEvaluator().check(query)) {
+					violated.set(id);
+				}
+			}
+		}
+		combine(set, kappa, violated);
+	}
+
+	/*
+	 * Same as kappa for each query of batch, the base constraints being
+	 * evaluated on the whole batch at once
+	 */
+	protected void kappa(QueryBatch batch, ConstraintSet set, ConstraintSet[] kappas, BitSet checked, BitSet[] violated) {
+		for (int i = 0; i < base.length; i++) {
+			int id = ids[i];
+			if (!checked.get(id)) {
+				ACQ_IConstraint c = base[i];
+				checked.set(id);
+				if (batch.getScope().containsAll(c.getScope())) {
+					BitSet rows = c.getEvaluator().violated(batch);
+					for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+						violated[r].set(id);
+					}
+				}
+			}
+		}
+		for (int r = 0; r < kappas.length; r++) {
+			combine(set, kappas[r], violated[r]);
+		}
+	}
+
+	/*
+	 * Adds to kappa the disjunctions of set whose base constraints are all
+	 * in violated
+	 */
+	protected void combine(ConstraintSet set, ConstraintSet kappa, BitSet violated) {
+		int[] violating = new int[base.length];
+		int n = 0;
+		for (int i = 0; i < base.length; i++) {
+			if (violated.get(ids[i])) violating[n++] = i;
+		}
+		if (n < arity) return;
+
+		int[] combo = start(arity);
+		int[] members = new int[arity];
+		do {
+			for (int i = 0; i < arity; i++) members[i] = violating[combo[i]];
+			int id = first + rank(members);
+			if (set.constraintSet.get(id)) kappa.constraintSet.set(id);
+		} while (next(combo, n));
+	}
+}
@@ -40,6 +40,19 @@ public class Formula {
 		atLeastAtMost = null;
 	}
 	
+	/*
+	 * Copy sharing the cnfs and clauses of this formula
+	 */
+	public Formula copy() {
+		Formula res = new Formula();
+		res.cnfs.addAll(cnfs);
+		res.minimizations.addAll(minimizations);
+		res.atLeastAtMost = atLeastAtMost;
+		res.atLeastLower = atLeastLower;
+		res.atMostUpper = atMostUpper;
+		return res;
+	}
+	
 	public void addCnf(CNF cnf) {
 		cnfs.add(cnf);
 	}
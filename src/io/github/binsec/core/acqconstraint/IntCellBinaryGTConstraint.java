@@ -72,16 +72,8 @@ public class IntCellBinaryGTConstraint extends BinaryConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		IntVar var1 = null;
-		
-		for (int i = 0; i < intVars.length && (var0 == null || var1 == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var1 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var1 = intVars[vars[1].getId()];
 		
 		if (!negated) {
 			cst = model.arithm(var0, ">", var1);
@@ -94,16 +86,8 @@ public class IntCellBinaryGTConstraint extends BinaryConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		IntVar var1 = null;
-		
-		for (int i = 0; i < intVars.length && (var0 == null || var1 == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var1 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var1 = intVars[vars[1].getId()];
 		
 		if (!negated) {
 			model.arithm(var0, ">", var1).reifyWith(b);
@@ -112,6 +96,11 @@ public class IntCellBinaryGTConstraint extends BinaryConstraint {
 		}
 	}
 	
+	@Override
+	public CellRelation getCellRelation() {
+		return new CellRelation(vars[0].getId(), !negated ? Operator.GT : Operator.LE, vars[1].getId());
+	}
+
 	@Override
 	public String getNegName() {
 		if (!negated) {
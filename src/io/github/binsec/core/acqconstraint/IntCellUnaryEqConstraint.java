@@ -89,13 +89,7 @@ public class IntCellUnaryEqConstraint extends UnaryConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 		if (!negated) {
 			cst = model.arithm(var0, "=", this.constant);
@@ -108,13 +102,7 @@ public class IntCellUnaryEqConstraint extends UnaryConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 		if (!negated) {
 			model.arithm(var0, "=", this.constant).reifyWith(b);
@@ -124,6 +112,11 @@ public class IntCellUnaryEqConstraint extends UnaryConstraint {
 		
 	}
 
+	@Override
+	public CellRelation getCellRelation() {
+		return new CellRelation(!negated ? Operator.EQ : Operator.NQ, vars[0].getId(), this.constant);
+	}
+
 	@Override
 	public String getNegName() {
 		if (!negated) {
@@ -92,13 +92,7 @@ public class IntCellUnaryModConstraint extends UnaryConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 
 		IntVar z = var0.mod(mod).intVar();
@@ -113,13 +107,7 @@ public class IntCellUnaryModConstraint extends UnaryConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 		IntVar z = var0.mod(mod).intVar();
 		if (!negated) {
@@ -98,23 +98,10 @@ public class OverlapConstraint extends ScalarConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		IntVar var0size = null;
-		IntVar var1 = null;
-		IntVar var1size = null;
-		
-		for (int i = 0; i < intVars.length && 
-				(var0 == null || var0size == null || var1 == null || var1size == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var0size = intVars[i];
-			} else if (intVars[i].getName().equals(vars[2].getName())) {
-				var1 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[3].getName())) {
-				var1size = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var0size = intVars[vars[1].getId()];
+		IntVar var1 = intVars[vars[2].getId()];
+		IntVar var1size = intVars[vars[3].getId()];
 		
 		var0 = model.intScaleView(var0, 1000);
 		var1 = model.intScaleView(var1, 1000);
@@ -148,23 +135,10 @@ public class OverlapConstraint extends ScalarConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		IntVar var0size = null;
-		IntVar var1 = null;
-		IntVar var1size = null;
-		
-		for (int i = 0; i < intVars.length && 
-				(var0 == null || var0size == null || var1 == null || var1size == null); i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[1].getName())) {
-				var0size = intVars[i];
-			} else if (intVars[i].getName().equals(vars[2].getName())) {
-				var1 = intVars[i];
-			} else if (intVars[i].getName().equals(vars[3].getName())) {
-				var1size = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
+		IntVar var0size = intVars[vars[1].getId()];
+		IntVar var1 = intVars[vars[2].getId()];
+		IntVar var1size = intVars[vars[3].getId()];
 		
 		var0 = model.intScaleView(var0, 1000);
 		var1 = model.intScaleView(var1, 1000);
@@ -274,11 +248,10 @@ public class OverlapConstraint extends ScalarConstraint {
 
 	@Override
 	protected boolean check(int[] value, int[] coeff) {
-		int v0 = value[0];
-		int v0size = value[1];
-		int v1 = value[2];
-		int v1size = value[3];
-		
+		return check(value[0], value[1], value[2], value[3]);
+	}
+	
+	protected boolean check(int v0, int v0size, int v1, int v1size) {
 		v0 = 1000*v0;
 		v1 = 1000*v1;
 		
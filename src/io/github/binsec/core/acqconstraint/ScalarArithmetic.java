@@ -122,7 +122,6 @@ public class ScalarArithmetic extends ScalarConstraint {
 	@Override
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		IntVar[] temp = new IntVar[vars.length];
-		IntVar[] V = model.retrieveIntVars(true);
 
 		/*for (int i = 0; i < temp.length; i++) {
 			System.out.print(vars[i]);
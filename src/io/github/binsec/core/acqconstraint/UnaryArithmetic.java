@@ -78,11 +78,7 @@ public class UnaryArithmetic extends UnaryConstraint {
 
 	@Override
 	public Constraint[] getChocoConstraints(Model model,IntVar... intVars) {
-		IntVar l=null;
-		for(IntVar v : intVars) {
-			if(v.getName().equals(NameService.getVarName(this.getVariables()[0])))
-					l= v;
-		}
+		IntVar l=intVars[this.getVariables()[0]];
 		
 		return new Constraint[]{model.arithm(l, op.toString(), cste)};
 		/*
@@ -22,20 +22,33 @@
 
 package io.github.binsec.core.acqconstraint;
 
+import java.util.function.Supplier;
+
 public class Unit {
 	
-	protected String varname;
+	protected String varname = null; // computed on demand
 	final protected int minisatvariable;
-	final protected ACQ_IConstraint constraint;
+	protected volatile ACQ_IConstraint constraint;
+	/*
+	 * Creates the constraint of this unit when it is first needed
+	 */
+	final protected Supplier<ACQ_IConstraint> source;
 	protected Boolean negated;
 	
 	public Unit(ACQ_IConstraint constr, int var, Boolean neg) {
 		// when using MiniSat solver
-		varname = constr.getName();
-		for (int vari : constr.getVariables()) {
-			varname += "_" + vari;
-		}
 		constraint = constr;
+		source = null;
+		assert var > 0 : "minisat variables must be > 0";
+		minisatvariable = var;
+		negated = neg;
+	}
+	
+	/*
+	 * Unit of the constraint created by source on first use
+	 */
+	public Unit(Supplier<ACQ_IConstraint> source, int var, Boolean neg) {
+		this.source = source;
 		assert var > 0 : "minisat variables must be > 0";
 		minisatvariable = var;
 		negated = neg;
@@ -79,6 +92,8 @@ public class Unit {
 	
 	public Unit clone() {
 		if(minisatvariable > 0) {
+			if (constraint == null)
+				return new Unit(this::getConstraint, minisatvariable, negated);
 			return new Unit(constraint, minisatvariable, negated);
 		}
 		else {
@@ -88,18 +103,35 @@ public class Unit {
 	}
 	
 	public ACQ_IConstraint getConstraint() {
+		if (constraint == null) {
+			synchronized (this) {
+				if (constraint == null) constraint = source.get();
+			}
+		}
 		return constraint;
 	}
 	
+	protected String getVarname() {
+		if (varname == null) {
+			ACQ_IConstraint constr = getConstraint();
+			String res = constr.getName();
+			for (int vari : constr.getVariables()) {
+				res += "_" + vari;
+			}
+			varname = res;
+		}
+		return varname;
+	}
+	
 	
 	public Boolean equalsConstraint(ACQ_IConstraint constr) {
 		
-		if (!constr.getName().equals(constraint.getName()) 
-				|| constr.getArity() != constraint.getArity())
+		if (!constr.getName().equals(getConstraint().getName()) 
+				|| constr.getArity() != getConstraint().getArity())
 			return false;
 		
 		int[] constrVars = constr.getVariables();
-		int[] constraintVars = constraint.getVariables();
+		int[] constraintVars = getConstraint().getVariables();
 		for (int index=0; index < constrVars.length; index++) {
 			if(constrVars[index] != constraintVars[index])
 				return false;
@@ -111,14 +143,13 @@ public class Unit {
 		return equalsConstraint(unit.getConstraint());
 	}
 	
+	/*
+	 * The literal, so that the constraint is not created: there is one 
+	 * variable per constraint
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + varname.hashCode();
-		result = prime * result + constraint.hashCode();
-		result = prime * result + negated.hashCode();
-		return result;
+		return toMiniSat();
 	}
 	
 	@Override
@@ -134,12 +165,15 @@ public class Unit {
 	}
 	
 	public Boolean equals(Unit unit) {
+		if (unit.toMiniSat() == this.toMiniSat()) {
+			return true; // one variable per constraint
+		}
 		return equalsConstraint(unit.getConstraint()) && unit.isNeg() == this.isNeg();
 	}
 	
 	public Boolean isOpposite(Unit unit) {
 		ACQ_IConstraint constr = unit.getConstraint();
-		ACQ_IConstraint nega = constraint.getNegation();
+		ACQ_IConstraint nega = getConstraint().getNegation();
 		
 		if (!constr.getName().equals(nega.getName()) 
 				|| constr.getArity() != nega.getArity())
@@ -155,7 +189,7 @@ public class Unit {
 	}
 	
 	public Boolean isOpposite(ACQ_IConstraint constr) {
-		ACQ_IConstraint nega = constraint.getNegation();
+		ACQ_IConstraint nega = getConstraint().getNegation();
 		
 		if (!constr.getName().equals(nega.getName()) 
 				|| constr.getArity() != nega.getArity())
@@ -172,10 +206,10 @@ public class Unit {
 	
 	public String toString() {
 		if(negated) {
-			return "~a(" + varname + ")";
+			return "~a(" + getVarname() + ")";
 		}
 		else {
-			return "a(" + varname + ")";
+			return "a(" + getVarname() + ")";
 		}
 	}
 	
@@ -87,13 +87,7 @@ public class ValidConstraint extends UnaryConstraint {
 	public Constraint[] getChocoConstraints(Model model, IntVar... intVars) {
 		Constraint cst;
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 		if (!negated) {
 			cst = model.arithm(var0, "!=", 0);
@@ -106,13 +100,7 @@ public class ValidConstraint extends UnaryConstraint {
 	@Override
 	public void toReifiedChoco(Model model, BoolVar b, IntVar... intVars) {
 		
-		IntVar var0 = null;
-		
-		for (int i = 0; i < intVars.length && var0 == null; i++) {
-			if (intVars[i].getName().equals(vars[0].getName())) {
-				var0 = intVars[i];
-			}
-		}
+		IntVar var0 = intVars[vars[0].getId()];
 		
 		if (!negated) {
 			model.arithm(var0, "!=", 0).reifyWith(b);
@@ -122,6 +110,11 @@ public class ValidConstraint extends UnaryConstraint {
 		
 	}
 
+	@Override
+	public CellRelation getCellRelation() {
+		return new CellRelation(!negated ? Operator.NQ : Operator.EQ, vars[0].getId(), 0);
+	}
+
 	@Override
 	public String getNegName() {
 		if (!negated) {
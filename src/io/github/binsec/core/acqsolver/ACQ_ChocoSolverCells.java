@@ -23,10 +23,16 @@
 package io.github.binsec.core.acqsolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
+import org.chocosolver.solver.DefaultSettings;
 import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
@@ -39,20 +45,169 @@ import io.github.binsec.core.learner.ACQ_Scope;
 public class ACQ_ChocoSolverCells extends ACQ_ConstraintSolver {
 
 	ACQ_CellVariable[] cells;
+	/*
+	 * ids of the variables in the order of getChocoVars, 
+	 * null if this order already is the id order
+	 */
+	int[] varids = null;
+	int maxid = -1;
+	
+	/*
+	 * Persistent mode: a single model is kept between calls, the choco constraints 
+	 * of each constraint are built once and posted/unposted according to the network.
+	 */
+	static final int MAX_ENCODED = 10000;
+	boolean persistent = false;
+	Model pmodel = null;
+	IntVar[] pvars = null;
+	IntVar[] pindexed = null;
+	IdentityHashMap<ACQ_IConstraint, Constraint[]> encoded = new IdentityHashMap<>();
+	IdentityHashMap<ACQ_IConstraint, Constraint[]> posted = new IdentityHashMap<>();
+	
+	/*
+	 * When set, networks of cell comparisons are decided by the propagator 
+	 * and choco is only called when it cannot conclude
+	 */
+	boolean propagate = false;
+	CellPropagator propagator = null;
+	
+	boolean timeoutReached = false; // set by solveMax, reset by every solve
 	
 	public ACQ_ChocoSolverCells(ACQ_CellVariable[] cells) {
 		this.cells = cells;
+		
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (ACQ_CellVariable cell : cells) {
+			if (cell.isGlobal()) {
+				ids.add(cell.getRef().getId());
+			}
+			ids.add(cell.getValue().getId());
+			if (cell.getType() == CellType.PTR) {
+				ids.add(cell.getSize().getId());
+			}
+		}
+		
+		boolean ordered = true;
+		varids = new int[ids.size()];
+		for (int i = 0; i < varids.length; i++) {
+			varids[i] = ids.get(i);
+			maxid = Math.max(maxid, varids[i]);
+			ordered &= varids[i] == i;
+		}
+		if (ordered) varids = null;
+	}
+	
+	public void setPersistent(boolean persistent) {
+		this.persistent = persistent;
+	}
+	
+	public void setPropagate(boolean propagate) {
+		this.propagate = propagate;
+	}
+	
+	protected synchronized CellPropagator getPropagator() {
+		if (propagator == null) {
+			IntVar[] chocoVars = getChocoVars(new Model());
+			int[] lower = new int[maxid + 1];
+			int[] upper = new int[maxid + 1];
+			for (int i = 0; i < chocoVars.length; i++) {
+				int id = varids == null ? i : varids[i];
+				lower[id] = chocoVars[i].getLB();
+				upper[id] = chocoVars[i].getUB();
+			}
+			propagator = new CellPropagator(lower, upper);
+		}
+		return propagator;
+	}
+	
+	/*
+	 * Update the persistent model so that exactly the constraints of the network are posted
+	 */
+	protected Solver prepare(ACQ_Network learned_network) {
+		if (pmodel == null || encoded.size() > MAX_ENCODED) {
+			// unposted constraints are expected, do not warn about them
+			pmodel = new Model("solve", new DefaultSettings().setCheckDeclaredConstraints(false));
+			pvars = getChocoVars(pmodel);
+			pindexed = byId(pvars);
+			encoded.clear();
+			posted.clear();
+		}
+		
+		Solver solver = pmodel.getSolver();
+		solver.reset();
+		solver.removeAllStopCriteria();
+		
+		IdentityHashMap<ACQ_IConstraint, Constraint[]> toPost = new IdentityHashMap<>();
+		for (ACQ_IConstraint constr : learned_network.getConstraints()) {
+			Constraint[] chocos = posted.remove(constr);
+			if (chocos == null) {
+				chocos = encoded.get(constr);
+				if (chocos == null) {
+					chocos = encode(constr);
+					encoded.put(constr, chocos);
+				}
+				else {
+					for (Constraint choco : chocos) {
+						choco.post();
+					}
+				}
+			}
+			toPost.put(constr, chocos);
+		}
+		for (Map.Entry<ACQ_IConstraint, Constraint[]> old : posted.entrySet()) {
+			pmodel.unpost(old.getValue());
+		}
+		posted = toPost;
+		
+		if (timeout)
+			solver.limitTime(this.getLimit());
+		return solver;
+	}
+	
+	/*
+	 * Post the choco constraints of constr and return them together with the 
+	 * reifications posted while building them, so that they are unposted together
+	 */
+	protected Constraint[] encode(ACQ_IConstraint constr) {
+		int before = pmodel.getNbCstrs();
+		for (Constraint choco : constr.getChocoConstraints(pmodel, pindexed)) {
+			choco.post();
+		}
+		Constraint[] all = pmodel.getCstrs();
+		return Arrays.copyOfRange(all, before, all.length);
 	}
 	
 	@Override
 	public boolean solve(ACQ_Network learned_network) {
+		setTimeoutReached(false);
+		if (propagate) {
+			fireSolverEvent("BEG_solve_network", false, true);
+			Boolean b = getPropagator().decide(learned_network);
+			if (b != null) {
+				fireSolverEvent("END_solve_network", true, false);
+				return b;
+			}
+			fireSolverEvent("END_solve_network", true, false);
+		}
+		if (persistent) {
+			synchronized (this) {
+				fireSolverEvent("BEG_solve_network", false, true);
+				Solver solver = prepare(learned_network);
+				boolean b = solver.solve();
+				fireSolverEvent("TIMECOUNT_N", null, Float.valueOf(solver.getTimeCount()));
+				fireSolverEvent("END_solve_network", true, false);
+				return b;
+			}
+		}
+		
 		fireSolverEvent("BEG_solve_network", false, true);
 		Model model = new Model("solve");
 		
 		IntVar[] chocoVars = getChocoVars(model);
+		IntVar[] indexed = byId(chocoVars);
 		
 		for (ACQ_IConstraint constr : learned_network.getConstraints()) {
-			for (Constraint choco : constr.getChocoConstraints(model, chocoVars)) {
+			for (Constraint choco : constr.getChocoConstraints(model, indexed)) {
 				choco.post();
 			}
 		}
@@ -71,15 +226,27 @@ public class ACQ_ChocoSolverCells extends ACQ_ConstraintSolver {
 
 	@Override
 	public ACQ_Query solveQ(ACQ_Network learned_network) {
+		setTimeoutReached(false);
+		if (persistent) {
+			synchronized (this) {
+				fireSolverEvent("BEG_solveQ", false, true);
+				Solver solver = prepare(learned_network);
+				solver.solve();
+				fireSolverEvent("TIMECOUNT_Q", null, Float.valueOf(solver.getTimeCount()));
+				ACQ_Query query = toQuery(solver, pvars, learned_network);
+				fireSolverEvent("END_solveQ", true, false);
+				return query;
+			}
+		}
+		
 		fireSolverEvent("BEG_solveQ", false, true);
 		Model model = new Model("solve");
 		
 		IntVar[] chocoVars = getChocoVars(model);
-		
-		ACQ_Query query = new ACQ_Query();
+		IntVar[] indexed = byId(chocoVars);
 		
 		for (ACQ_IConstraint constr : learned_network.getConstraints()) {
-			for (Constraint choco : constr.getChocoConstraints(model, chocoVars)) {
+			for (Constraint choco : constr.getChocoConstraints(model, indexed)) {
 				choco.post();
 			}
 		}
@@ -94,6 +261,64 @@ public class ACQ_ChocoSolverCells extends ACQ_ConstraintSolver {
 		
 		fireSolverEvent("TIMECOUNT_Q", null, Float.valueOf(solver.getTimeCount()));
 		
+		ACQ_Query query = toQuery(solver, chocoVars, learned_network);
+		fireSolverEvent("END_solveQ", true, false);
+		return query;
+	}
+	
+	@Override
+	public ACQ_Query solveMax(ACQ_Network hard, ACQ_Network soft) {
+		setTimeoutReached(false);
+		fireSolverEvent("BEG_solveQ", false, true);
+		Model model = new Model("solveMax");
+		
+		IntVar[] chocoVars = getChocoVars(model);
+		IntVar[] indexed = byId(chocoVars);
+		
+		for (ACQ_IConstraint constr : hard.getConstraints()) {
+			for (Constraint choco : constr.getChocoConstraints(model, indexed)) {
+				choco.post();
+			}
+		}
+		
+		// satisfied[i] <=> i-th soft constraint holds
+		BoolVar[] satisfied = new BoolVar[soft.size()];
+		int i = 0;
+		for (ACQ_IConstraint constr : soft.getConstraints()) {
+			Constraint[] chocos = constr.getChocoConstraints(model, indexed);
+			satisfied[i++] = chocos.length == 1 ? chocos[0].reify() : model.and(chocos).reify();
+		}
+		IntVar count = model.intVar("count", 0, satisfied.length);
+		model.sum(satisfied, "=", count).post();
+		model.setObjective(Model.MAXIMIZE, count);
+		
+		Solver solver = model.getSolver();
+		if (timeout)
+			solver.limitTime(this.getLimit());
+		
+		Solution best = new Solution(model, chocoVars);
+		boolean found = false;
+		while (solver.solve()) {
+			best.record();
+			found = true;
+		}
+		timeoutReached = solver.isStopCriterionMet();
+		
+		fireSolverEvent("TIMECOUNT_Q", null, Float.valueOf(solver.getTimeCount()));
+		ACQ_Query query = new ACQ_Query();
+		if (found) {
+			int[] tuple = new int[chocoVars.length];
+			for (int k = 0; k < chocoVars.length; k++) {
+				tuple[k] = best.getIntVal(chocoVars[k]);
+			}
+			query = new ACQ_Query(hard.getVariables(), tuple);
+		}
+		fireSolverEvent("END_solveQ", true, false);
+		return query;
+	}
+	
+	private ACQ_Query toQuery(Solver solver, IntVar[] chocoVars, ACQ_Network learned_network) {
+		ACQ_Query query = new ACQ_Query();
 		if (solver.getSolutionCount() != 0) {
 			int[] tuple = new int[chocoVars.length];
 			for (int i = 0; i < chocoVars.length; i++) {
@@ -102,10 +327,24 @@ public class ACQ_ChocoSolverCells extends ACQ_ConstraintSolver {
 			query = new ACQ_Query(learned_network.getVariables(), tuple);
 
 		}
-		fireSolverEvent("END_solveQ", true, false);
 		return query;
 	}
 
+	/*
+	 * Choco variables indexed by the id of their ACQ variable, 
+	 * which is how constraints retrieve their variables
+	 */
+	private IntVar[] byId(IntVar[] chocoVars) {
+		if (varids == null) {
+			return chocoVars;
+		}
+		IntVar[] res = new IntVar[maxid + 1];
+		for (int i = 0; i < varids.length; i++) {
+			res[varids[i]] = chocoVars[i];
+		}
+		return res;
+	}
+	
 	private IntVar[] getChocoVars(Model model) {
 		ArrayList<IntVar> res = new ArrayList<IntVar>();
 		for (int i = 0; i < cells.length; i++) {
@@ -149,14 +388,12 @@ public class ACQ_ChocoSolverCells extends ACQ_ConstraintSolver {
 
 	@Override
 	protected void setTimeoutReached(boolean timeoutReached) {
-		// TODO Auto-generated method stub
-		
+		this.timeoutReached = timeoutReached;
 	}
 
 	@Override
 	public boolean isTimeoutReached() {
-		// TODO Auto-generated method stub
-		return false;
+		return timeoutReached;
 	}
 
 	@Override
@@ -65,6 +65,18 @@ abstract public class ACQ_ConstraintSolver {
 	 */
 	public abstract ACQ_Query solveQ(ACQ_Network learned_network);
 	
+	/**
+	 * returns a solution of hard satisfying as many constraints of soft as possible,
+	 * the optimum is proven unless isTimeoutReached()
+	 * 
+	 * @param hard Constraints to satisfy
+	 * @param soft Constraints to satisfy as much as possible
+	 * @return query, empty if hard has no solution, null if this solver cannot optimize
+	 */
+	public ACQ_Query solveMax(ACQ_Network hard, ACQ_Network soft) {
+		return null;
+	}
+	
 	/**
 	 * Function used to check if this solver exceed a definite time
 	 * 
@@ -0,0 +1,102 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+import io.github.binsec.core.acqconstraint.ACQ_Network;
+import io.github.binsec.core.learner.ACQ_Query;
+
+/**
+ *
+ * Pool of constraint solvers, each solver handling at most one network 
+ * at a time. Up to one network per solver is solved concurrently.
+ *
+ */
+public class ACQ_SolverPool {
+
+	protected BlockingQueue<ACQ_ConstraintSolver> idle;
+	protected ExecutorService executor;
+	protected int nbworkers;
+
+	public ACQ_SolverPool(List<ACQ_ConstraintSolver> solvers) {
+		assert solvers.size() > 0 : "pool must contain at least one solver";
+		this.nbworkers = solvers.size();
+		this.idle = new LinkedBlockingQueue<>(solvers);
+		this.executor = Executors.newFixedThreadPool(solvers.size(), (Runnable r) -> {
+			Thread t = new Thread(r, "solver-worker");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public int getNbWorkers() {
+		return nbworkers;
+	}
+
+	/*
+	 * Run task with the first idle solver
+	 */
+	public <T> CompletableFuture<T> submit(Function<ACQ_ConstraintSolver, T> task) {
+		return CompletableFuture.supplyAsync(() -> {
+			ACQ_ConstraintSolver solver;
+			try {
+				solver = idle.take();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(ex);
+			}
+			try {
+				return task.apply(solver);
+			}
+			finally {
+				idle.add(solver);
+			}
+		}, executor);
+	}
+
+	/*
+	 * Consistency check of network on the first idle solver
+	 */
+	public CompletableFuture<Boolean> solve(ACQ_Network network) {
+		return submit((ACQ_ConstraintSolver solver) -> solver.solve(network));
+	}
+
+	/*
+	 * Solution of network computed on the first idle solver
+	 */
+	public CompletableFuture<ACQ_Query> solveQ(ACQ_Network network) {
+		return submit((ACQ_ConstraintSolver solver) -> solver.solveQ(network));
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,260 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
+import io.github.binsec.core.acqconstraint.ACQ_Network;
+import io.github.binsec.core.acqconstraint.CellRelation;
+import io.github.binsec.core.acqconstraint.Operator;
+import io.github.binsec.core.learner.ACQ_Query;
+import io.github.binsec.core.learner.ACQ_Scope;
+
+/**
+ * Decides networks of comparisons between cell variables without choco.
+ * 
+ * Equalities are merged with a union-find, then bounds are propagated 
+ * on the inequalities. The network is unsatisfiable when a domain becomes 
+ * empty or a disequality holds between merged variables. It is satisfiable 
+ * when setting each variable to its lower bound satisfies every constraint.
+ * Otherwise nothing is concluded.
+ */
+public class CellPropagator {
+	
+	static final int MAX_ROUNDS = 64;
+	
+	int[] lower; // initial domains, indexed by variable id
+	int[] upper;
+	
+	public CellPropagator(int[] lower, int[] upper) {
+		this.lower = lower;
+		this.upper = upper;
+	}
+	
+	private int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+	
+	/*
+	 * Bounds propagation over the inequalities and excluded values until a fixpoint. 
+	 * Returns false if a domain becomes empty, null if no fixpoint is reached
+	 */
+	private Boolean propagate(int[] lb, int[] ub, ArrayList<int[]> edges, 
+			HashMap<Integer, HashSet<Integer>> excluded) {
+		boolean changed = true;
+		for (int round = 0; changed && round < MAX_ROUNDS; round++) {
+			changed = false;
+			for (HashMap.Entry<Integer, HashSet<Integer>> entry : excluded.entrySet()) {
+				int root = entry.getKey();
+				while (lb[root] <= ub[root] && entry.getValue().contains(lb[root])) {
+					lb[root]++;
+					changed = true;
+				}
+				while (lb[root] <= ub[root] && entry.getValue().contains(ub[root])) {
+					ub[root]--;
+					changed = true;
+				}
+			}
+			for (int[] edge : edges) {
+				if (lb[edge[1]] < lb[edge[0]] + edge[2]) {
+					lb[edge[1]] = lb[edge[0]] + edge[2];
+					changed = true;
+				}
+				if (ub[edge[0]] > ub[edge[1]] - edge[2]) {
+					ub[edge[0]] = ub[edge[1]] - edge[2];
+					changed = true;
+				}
+			}
+			for (int i = 0; i < lb.length; i++) {
+				if (lb[i] > ub[i]) return false;
+			}
+		}
+		return changed ? null : true;
+	}
+	
+	/* true if a fixed class that must differ from root has value v */
+	private boolean conflicts(int root, int v, ArrayList<int[]> diff, boolean[] fixed, int[] lb) {
+		for (int[] d : diff) {
+			if (d[0] == root && fixed[d[1]] && lb[d[1]] == v) return true;
+			if (d[1] == root && fixed[d[0]] && lb[d[0]] == v) return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Returns true (resp. false) if the network is satisfiable (resp. unsatisfiable), 
+	 * null if it cannot be decided
+	 */
+	public Boolean decide(ACQ_Network network) {
+		int n = lower.length;
+		int[] parent = new int[n];
+		for (int i = 0; i < n; i++) parent[i] = i;
+		
+		ArrayList<CellRelation> unaries = new ArrayList<>();
+		ArrayList<CellRelation> binaries = new ArrayList<>();
+		boolean complete = true;
+		
+		for (ACQ_IConstraint constr : network.getConstraints()) {
+			CellRelation rel = constr.getCellRelation();
+			if (rel == null) {
+				complete = false;
+			}
+			else if (!rel.isBinary()) {
+				unaries.add(rel);
+			}
+			else {
+				binaries.add(rel);
+				if (rel.op == Operator.EQ) {
+					parent[find(parent, rel.left)] = find(parent, rel.right);
+				}
+			}
+		}
+		
+		// domain of each class
+		int[] lb = new int[n];
+		int[] ub = new int[n];
+		for (int i = 0; i < n; i++) {
+			lb[i] = Integer.MIN_VALUE;
+			ub[i] = Integer.MAX_VALUE;
+		}
+		for (int i = 0; i < n; i++) {
+			int root = find(parent, i);
+			lb[root] = Math.max(lb[root], lower[i]);
+			ub[root] = Math.min(ub[root], upper[i]);
+		}
+		
+		HashMap<Integer, HashSet<Integer>> excluded = new HashMap<>();
+		for (CellRelation rel : unaries) {
+			int root = find(parent, rel.left);
+			switch (rel.op) {
+			case EQ:
+				lb[root] = Math.max(lb[root], rel.cst);
+				ub[root] = Math.min(ub[root], rel.cst);
+				break;
+			case NQ:
+				excluded.computeIfAbsent(root, k -> new HashSet<>()).add(rel.cst);
+				break;
+			case LT:
+				ub[root] = Math.min(ub[root], rel.cst - 1);
+				break;
+			case LE:
+				ub[root] = Math.min(ub[root], rel.cst);
+				break;
+			case GT:
+				lb[root] = Math.max(lb[root], rel.cst + 1);
+				break;
+			case GE:
+				lb[root] = Math.max(lb[root], rel.cst);
+				break;
+			default:
+				return null;
+			}
+		}
+		
+		// from -> to with gap, meaning value(to) >= value(from) + gap
+		ArrayList<int[]> edges = new ArrayList<>();
+		ArrayList<int[]> diff = new ArrayList<>();
+		for (CellRelation rel : binaries) {
+			int a = find(parent, rel.left);
+			int b = find(parent, rel.right);
+			switch (rel.op) {
+			case EQ:
+				break;
+			case NQ:
+				if (a == b) return false;
+				diff.add(new int[] {a, b});
+				break;
+			case LT:
+				if (a == b) return false;
+				edges.add(new int[] {a, b, 1});
+				break;
+			case LE:
+				if (a != b) edges.add(new int[] {a, b, 0});
+				break;
+			case GT:
+				if (a == b) return false;
+				edges.add(new int[] {b, a, 1});
+				break;
+			case GE:
+				if (a != b) edges.add(new int[] {b, a, 0});
+				break;
+			default:
+				return null;
+			}
+		}
+		
+		Boolean res = propagate(lb, ub, edges, excluded);
+		if (res == null || !res) {
+			return res;
+		}
+		
+		// candidate solution: every class at its lower bound, unless two classes 
+		// that must differ collide, then these classes are fixed one by one
+		boolean collide = false;
+		for (int[] d : diff) {
+			collide |= lb[d[0]] == lb[d[1]];
+		}
+		if (collide) {
+			boolean[] fixed = new boolean[n];
+			for (int[] d : diff) {
+				for (int k = 0; k < 2; k++) {
+					int root = d[k];
+					if (fixed[root]) continue;
+					int v = lb[root];
+					HashSet<Integer> excl = excluded.getOrDefault(root, new HashSet<>());
+					while (v <= ub[root] && (excl.contains(v) || conflicts(root, v, diff, fixed, lb))) v++;
+					if (v > ub[root]) return null;
+					lb[root] = v;
+					ub[root] = v;
+					fixed[root] = true;
+					if (propagate(lb, ub, edges, excluded) != Boolean.TRUE) return null;
+				}
+			}
+		}
+		
+		if (complete) {
+			return true;
+		}
+		
+		// cell constraints read the values of a query by variable id
+		BitSet ids = new BitSet();
+		ids.set(0, n);
+		int[] tuple = new int[n];
+		for (int i = 0; i < n; i++) {
+			tuple[i] = lb[find(parent, i)];
+		}
+		ACQ_Query query = new ACQ_Query(new ACQ_Scope(ids), tuple);
+		for (ACQ_IConstraint constr : network.getConstraints()) {
+			if (!constr.check(query)) return null;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,256 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.pb.IPBSolver;
+import org.sat4j.pb.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+import io.github.binsec.core.acqconstraint.CNF;
+import io.github.binsec.core.acqconstraint.Clause;
+import io.github.binsec.core.acqconstraint.Formula;
+
+/**
+ * MiniSat backend keeping the same sat4j solver between calls.
+ * 
+ * Each clause (and each cardinality constraint) is added once, guarded by 
+ * a selector variable. A call enables the clauses of its formula by assuming
+ * their selectors, unit clauses are directly assumed. Clauses learned by the 
+ * solver hence carry over between calls.
+ * 
+ * The clauses of a CNF keeping a log (see CNF.enableLog) share a single 
+ * selector, each call only adds the clauses appended since the previous one.
+ */
+public class IncrementalMiniSatSolver extends MiniSatSolver {
+
+	/*
+	 * The solver is rebuilt when the number of guarded clauses exceeds
+	 * REBUILD_RATIO times the size of the last formula (plus REBUILD_MIN)
+	 */
+	static final int REBUILD_RATIO = 4;
+	static final int REBUILD_MIN = 10000;
+	
+	protected IPBSolver solv = null;
+	protected int builtvars = 0;
+	protected int lastsize = 0;
+	protected HashMap<List<Integer>, Integer> selectors = new HashMap<>();
+	/*
+	 * For each logged CNF: its generation, its selector and the 
+	 * number of clauses of its log already added
+	 */
+	protected IdentityHashMap<CNF, int[]> logged = new IdentityHashMap<>();
+	
+	protected void build() {
+		solv = SolverFactory.newDefault();
+		solv.setTimeout(this.timeout);
+		solv.newVar(this.nvars);
+		builtvars = this.nvars;
+		selectors.clear();
+		logged.clear();
+	}
+	
+	/*
+	 * Returns the selector of the logged CNF T, adding the clauses of its log 
+	 * not added yet
+	 */
+	protected int selector(CNF T) throws ContradictionException {
+		int[] state = logged.get(T);
+		if (state == null || state[0] != T.getGeneration()) {
+			state = new int[] {T.getGeneration(), solv.nextFreeVarId(true), 0};
+			logged.put(T, state);
+		}
+		
+		List<Clause> log = T.getLog();
+		for (; state[2] < log.size(); state[2]++) {
+			Clause cl = log.get(state[2]);
+			assert cl.getSize() > 0 : "empty clause";
+			int[] lits = sorted(cl);
+			VecInt guarded = new VecInt(Arrays.copyOf(lits, lits.length + 1));
+			guarded.set(lits.length, -state[1]);
+			solv.addClause(guarded);
+		}
+		return state[1];
+	}
+	
+	/*
+	 * Returns the selector of the sorted literals, adding the guarded clause if needed
+	 */
+	protected int selector(int[] lits) throws ContradictionException {
+		List<Integer> key = new ArrayList<>(lits.length);
+		for (int lit : lits) key.add(lit);
+		
+		Integer sel = selectors.get(key);
+		if (sel == null) {
+			sel = solv.nextFreeVarId(true);
+			VecInt guarded = new VecInt(Arrays.copyOf(lits, lits.length + 1));
+			guarded.set(lits.length, -sel);
+			solv.addClause(guarded);
+			selectors.put(key, sel);
+		}
+		return sel;
+	}
+	
+	/*
+	 * Returns the selector of atLeast(lits, lower) and atMost(lits, upper)
+	 */
+	protected int selector(int[] lits, int lower, int upper) throws ContradictionException {
+		List<Integer> key = new ArrayList<>(lits.length + 3);
+		for (int lit : lits) key.add(lit);
+		key.add(0); // 0 is never a literal
+		key.add(lower);
+		key.add(upper);
+		
+		Integer sel = selectors.get(key);
+		if (sel == null) {
+			sel = solv.nextFreeVarId(true);
+			int n = lits.length;
+			int[] ones = new int[n + 1];
+			Arrays.fill(ones, 1);
+			
+			if (lower > 0) {
+				// sum(lits) + lower * -sel >= lower
+				VecInt l = new VecInt(Arrays.copyOf(lits, n + 1));
+				l.set(n, -sel);
+				VecInt c = new VecInt(ones);
+				c.set(n, lower);
+				solv.addAtLeast(l, c, lower);
+			}
+			if (upper < n) {
+				// sum(lits) + (n - upper) * sel <= n
+				VecInt l = new VecInt(Arrays.copyOf(lits, n + 1));
+				l.set(n, sel);
+				VecInt c = new VecInt(ones);
+				c.set(n, n - upper);
+				solv.addAtMost(l, c, n);
+			}
+			selectors.put(key, sel);
+		}
+		return sel;
+	}
+	
+	protected int[] sorted(Clause cl) {
+		int[] lits = toMiniSatClause(cl).toArray();
+		lits = Arrays.copyOf(lits, cl.getSize());
+		Arrays.sort(lits);
+		return lits;
+	}
+	
+	protected synchronized SATModel solve(Collection<CNF> cnfs, Formula F) {
+		fireSolverEvent("BEG_satsolve", false, true);
+		
+		if (solv == null || builtvars != nvars || selectors.size() > REBUILD_RATIO * lastsize + REBUILD_MIN) {
+			build();
+		}
+		
+		SATModel res = null;
+		VecInt assumptions = new VecInt();
+		HashSet<Integer> vars = new HashSet<>();
+		ArrayList<CNF> logs = new ArrayList<>();
+		
+		try {
+			for (CNF T : cnfs) {
+				if (T.getLog() != null) {
+					assumptions.push(selector(T));
+					logs.add(T);
+					continue;
+				}
+				for (Clause cl : T) {
+					assert cl.getSize() > 0 : "empty clause";
+					int[] lits = sorted(cl);
+					for (int lit : lits) vars.add(Math.abs(lit));
+					assumptions.push(lits.length == 1 ? lits[0] : selector(lits));
+				}
+			}
+			if (F != null && F.hasAtLeastAtMost()) {
+				int[] lits = sorted(F.getAtLeastAtMost());
+				for (int lit : lits) vars.add(Math.abs(lit));
+				assumptions.push(selector(lits, F.atLeastLower(), F.atMostUpper()));
+			}
+			lastsize = assumptions.size();
+			
+			fireSolverEvent("BEG_TIMECOUNT", false, true);
+			boolean sat = solv.isSatisfiable(assumptions);
+			fireSolverEvent("END_TIMECOUNT", true, false);
+			
+			if (sat) {
+				// Variables that are not in the formula are set to false
+				ArrayList<Integer> model = new ArrayList<>();
+				for (int lit : solv.model()) {
+					if (lit > 0 && (vars.contains(lit) || contains(logs, lit))) model.add(lit);
+				}
+				res = new MiniSatModel(model, revmapping);
+			}
+		} 
+		catch (ContradictionException e) {
+			assert false : "guarded constraints cannot be contradictory";
+		} 
+		catch (TimeoutException e) {
+			this.timeoutReached = true;
+		}
+		
+		fireSolverEvent("END_satsolve", true, false);
+		return res;
+	}
+	
+	protected boolean contains(List<CNF> cnfs, int var) {
+		for (CNF T : cnfs) {
+			if (T.containsVariable(var)) return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public SATModel solve(CNF T) {
+		return solve(Collections.singleton(T), null);
+	}
+	
+	@Override
+	public SATModel solve(Formula F) {
+		return solve(F.getCnfs(), F);
+	}
+	
+	@Override
+	public void setLimit(Long timeout) {
+		super.setLimit(timeout);
+		if (solv != null) solv.setTimeout(this.timeout);
+	}
+	
+	@Override
+	public synchronized void reset() {
+		super.reset();
+		solv = null;
+		selectors.clear();
+		logged.clear();
+	}
+}
@@ -23,6 +23,7 @@
 package io.github.binsec.core.acqsolver;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
 import io.github.binsec.core.acqconstraint.RevConstraintMapping;
@@ -32,6 +33,7 @@ public class MiniSatModel extends SATModel {
 
 	ArrayList<Integer> model;
 	RevConstraintMapping revmapping;
+	HashSet<Integer> positive = null; // literals of model, built by get
 	
 	public MiniSatModel(ArrayList<Integer> model, RevConstraintMapping revmap) {
 		this.model = model;
@@ -45,20 +47,13 @@ public class MiniSatModel extends SATModel {
 	@Override
 	public Boolean get(Unit unit) {
 		assert !unit.isNeg() : "unit cannot be negative";
-		int constrid = unit.getMiniSatVar();
-		for (int i = 0; i < model.size(); i++) {
-			if(model.get(i) == constrid || model.get(i) == -constrid) {
-				assert model.get(i) != 0;
-				if (model.get(i) < 0) {
-					assert false;
-					return false;
-				}
-				else {
-					return true;
-				}
-			}
+		if (positive == null) {
+			positive = new HashSet<>(model);
+			assert !positive.contains(0);
 		}
-		return false; // By default if the literal is not in the model it is set to false
+		int constrid = unit.getMiniSatVar();
+		assert !positive.contains(-constrid);
+		return positive.contains(constrid); // By default if the literal is not in the model it is set to false
 	}
 
 	@Override
@@ -23,6 +23,7 @@
 package io.github.binsec.core.acqsolver;
 
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 import org.sat4j.core.VecInt;
 import org.sat4j.pb.IPBSolver;
@@ -175,6 +176,19 @@ public class MiniSatSolver extends SATSolver {
 		return unit;
 	}
 
+	@Override
+	public int reserveVars(int n) {
+		int first = this.nvars + 1;
+		this.nvars += n;
+		return first;
+	}
+
+	@Override
+	public Unit addVar(Supplier<ACQ_IConstraint> constr, int var) {
+		assert var > 0 && var <= nvars : "variable not reserved";
+		return new Unit(constr, var, false);
+	}
+
 	@Override
 	public Boolean isTimeoutReached() {
 		return this.timeoutReached;
@@ -30,6 +30,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
 import io.github.binsec.core.acqconstraint.CNF;
@@ -266,6 +267,19 @@ public class NaPSSolver extends SATSolver {
 		return unit;
 	}
 
+	@Override
+	public int reserveVars(int n) {
+		int first = this.nvars + 1;
+		this.nvars += n;
+		return first;
+	}
+
+	@Override
+	public Unit addVar(Supplier<ACQ_IConstraint> constr, int var) {
+		assert var > 0 && var <= nvars : "variable not reserved";
+		return new Unit(constr, var, false);
+	}
+
 	@Override
 	public Boolean isTimeoutReached() {
 		return this.timeoutReached;
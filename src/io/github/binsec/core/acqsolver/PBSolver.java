@@ -0,0 +1,138 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.pb.IPBSolver;
+import org.sat4j.pb.ObjectiveFunction;
+import org.sat4j.pb.OptToPBSATAdapter;
+import org.sat4j.pb.PseudoOptDecorator;
+import org.sat4j.pb.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+import io.github.binsec.core.acqconstraint.CNF;
+import io.github.binsec.core.acqconstraint.Clause;
+import io.github.binsec.core.acqconstraint.Formula;
+import io.github.binsec.core.acqconstraint.Unit;
+
+/**
+ * In-process replacement of NaPSSolver, based on the sat4j pseudo-boolean optimizer.
+ * 
+ * As with NaPS, the minimization clauses of a formula define the objective 
+ * min: sum(-weight(c) * c), which is ignored when all weights equal 1.
+ */
+public class PBSolver extends MiniSatSolver {
+	
+	/*
+	 * Objective built from the minimization clauses, null if there is nothing to minimize
+	 */
+	protected ObjectiveFunction toObjective(Formula F) {
+		LinkedHashMap<Integer, Integer> coeffs = new LinkedHashMap<>();
+		boolean shouldminimize = false; // if all weight equal 1 no minimization
+		
+		for (Clause cl : F.getMinimizations()) {
+			for (Unit u : cl) {
+				int weight = -u.getConstraint().getWeight();
+				if (weight != -1) {
+					shouldminimize = true;
+				}
+				coeffs.merge(u.toMiniSat(), weight, Integer::sum);
+			}
+		}
+		if (!shouldminimize)
+			return null;
+		
+		VecInt lits = new VecInt(coeffs.size());
+		Vec<BigInteger> weights = new Vec<>(coeffs.size());
+		for (Map.Entry<Integer, Integer> entry : coeffs.entrySet()) {
+			lits.push(entry.getKey());
+			weights.push(BigInteger.valueOf(entry.getValue()));
+		}
+		return new ObjectiveFunction(lits, weights);
+	}
+	
+	@Override
+	public SATModel solve(Formula F) {
+		ObjectiveFunction objective = toObjective(F);
+		if (objective == null) {
+			return super.solve(F);
+		}
+		
+		fireSolverEvent("BEG_satsolve", false, true);
+		
+		IPBSolver solv = SolverFactory.newDefault();
+		solv.newVar(this.nvars);
+		
+		SATModel res = null;
+		HashSet<Integer> vars = new HashSet<>();
+		
+		try {
+			for (CNF T : F.getCnfs()) {
+				for (Clause cl : T) {
+					assert cl.getSize() > 0 : "empty clause";
+					VecInt minisatclause = toMiniSatClause(cl);
+					for (int i = 0; i < minisatclause.size(); i++) vars.add(Math.abs(minisatclause.get(i)));
+					solv.addClause(minisatclause);
+				}
+			}
+			if (F.hasAtLeastAtMost()) {
+				VecInt minisatclause = toMiniSatClause(F.getAtLeastAtMost());
+				for (int i = 0; i < minisatclause.size(); i++) vars.add(Math.abs(minisatclause.get(i)));
+				solv.addAtLeast(minisatclause, F.atLeastLower());
+				solv.addAtMost(minisatclause, F.atMostUpper());
+			}
+			solv.setObjectiveFunction(objective);
+			
+			OptToPBSATAdapter optimizer = new OptToPBSATAdapter(new PseudoOptDecorator(solv));
+			optimizer.setTimeout(this.timeout);
+			
+			fireSolverEvent("BEG_TIMECOUNT", false, true);
+			// on timeout, the best model found so far is returned
+			boolean sat = optimizer.isSatisfiable();
+			fireSolverEvent("END_TIMECOUNT", true, false);
+			
+			if (sat) {
+				ArrayList<Integer> model = new ArrayList<>();
+				for (int lit : optimizer.model()) {
+					if (lit > 0 && vars.contains(lit)) model.add(lit);
+				}
+				res = new MiniSatModel(model, revmapping);
+			}
+		} 
+		catch (ContradictionException e) {/* the constraint network is not satisfiable */} 
+		catch (TimeoutException e) {
+			this.timeoutReached = true;
+		}
+		
+		fireSolverEvent("END_satsolve", true, false);
+		return res;
+	}
+}
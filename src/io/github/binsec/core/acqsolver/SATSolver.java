@@ -24,9 +24,14 @@ package io.github.binsec.core.acqsolver;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
 import io.github.binsec.core.acqconstraint.CNF;
+import io.github.binsec.core.acqconstraint.Clause;
 import io.github.binsec.core.acqconstraint.Formula;
 import io.github.binsec.core.acqconstraint.Unit;
 
@@ -44,8 +49,61 @@ abstract public class SATSolver {
 	
 	public abstract Unit addVar(ACQ_IConstraint constr, String name);
 	
+	/*
+	 * Reserves n consecutive variables and returns the first one
+	 */
+	public abstract int reserveVars(int n);
+	
+	/*
+	 * Unit on var, a variable reserved by reserveVars, of the constraint 
+	 * created by constr when it is first needed
+	 */
+	public abstract Unit addVar(Supplier<ACQ_IConstraint> constr, int var);
+	
 	public abstract Boolean isTimeoutReached();
 	
+	/**
+	 * Returns the candidates taking the same value in every model of F.
+	 * 
+	 * Each remaining candidate is forced to the opposite of its value in the
+	 * first model: if F becomes unsatisfiable the candidate belongs to the 
+	 * backbone, otherwise the new model rules out every candidate it flips.
+	 * 
+	 * @param F Formula
+	 * @param candidates Positive units
+	 * @return backbone among candidates, null if F is unsatisfiable or the solver timeouted
+	 */
+	public Set<Unit> backbone(Formula F, Collection<Unit> candidates) {
+		SATModel model = solve(F);
+		if (model == null) return null;
+		
+		Unit[] cands = candidates.toArray(new Unit[0]);
+		boolean[] values = new boolean[cands.length];
+		boolean[] flipped = new boolean[cands.length];
+		for (int i = 0; i < cands.length; i++) {
+			values[i] = model.get(cands[i]);
+		}
+		
+		Set<Unit> res = new HashSet<>();
+		for (int i = 0; i < cands.length; i++) {
+			if (flipped[i]) continue;
+			Unit flip = cands[i].clone();
+			if (values[i]) flip.setNeg();
+			Formula G = F.copy();
+			G.addClause(new Clause(flip));
+			
+			SATModel other = solve(G);
+			if (other == null) {
+				res.add(cands[i]);
+				continue;
+			}
+			for (int j = i + 1; j < cands.length; j++) {
+				if (!flipped[j] && other.get(cands[j]) != values[j]) flipped[j] = true;
+			}
+		}
+		return res;
+	}
+	
 	public void addPropertyChangeListener(PropertyChangeListener l) {
 		pcs.addPropertyChangeListener(l);
 	}
@@ -98,6 +98,11 @@ public class ACQ_RefVariable extends ACQ_Variable {
 		return "&var" + this.id;
 	}
 	
+	@Override
+	public int getId() {
+		return this.id;
+	}
+	
 	public int rand() {
 		Random random = new Random();
 		return lower_addr+random.nextInt((upper_addr+1)-lower_addr);
@@ -91,6 +91,11 @@ public class ACQ_ValueVariable extends ACQ_Variable {
 		return "var" + this.id;
 	}
 	
+	@Override
+	public int getId() {
+		return this.id;
+	}
+	
 	public int rand(int lower, int upper) {
 		// lower and upper inclusive
 		Random random = new Random();
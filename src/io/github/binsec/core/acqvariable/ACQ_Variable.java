@@ -34,4 +34,9 @@ public abstract class ACQ_Variable {
 	public abstract IntVar getChocoVar(Model model);
 	
 	public abstract String getName();
+	
+	/*
+	 * Index of the choco variable in the id-indexed array given to the constraints
+	 */
+	public abstract int getId();
 }
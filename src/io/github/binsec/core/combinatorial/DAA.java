@@ -23,6 +23,7 @@
 package io.github.binsec.core.combinatorial;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.concurrent.TimeoutException;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
@@ -36,6 +37,8 @@ import io.github.binsec.core.learner.ACQ_Query;
 public class DAA extends MSSIter {
 	protected ArrayList<ACQ_Network> mcses = new ArrayList<>();
 	protected ArrayList<ACQ_Network> muses = new ArrayList<>();
+	protected ArrayList<BitSet> musBits = new ArrayList<>();
+	protected HittingSets hitting = new HittingSets(); // of the mcses
 	protected ACQ_Network seed;
 	protected ACQ_Network basenet;
 	protected boolean haveSeed;
@@ -121,24 +124,31 @@ public class DAA extends MSSIter {
 	}
 	
 	public ACQ_Network nextMSS() throws TimeoutException {
-		
-		ACQ_Bias diff = bias.copy();
-		diff.reduce(next.getConstraints());
-		mcses.add(diff.getNetwork());
+		ConstraintFactory fact = bias.getNetwork().getFactory();
+		ConstraintSet diff = fact.createSet(bias.getNetwork().getConstraints());
+		diff.removeAll(next.getConstraints());
+		mcses.add(new ACQ_Network(fact, bias.getVars(), diff));
+		hitting.add(diff.toBitSet(), timeout == null ? null : t0 + timeout);
 		haveSeed = false;
 		
-		ArrayList<ACQ_Network> toiter = hittingSets(dup(mcses));
-		toiter.removeAll(muses);
-		for (ACQ_Network candidate : toiter) {
+		for (BitSet candidate : hitting.get()) {
 			istimeouted();
-			boolean sat = satisfiable(candidate);
-			if (sat) {
-				seed = candidate;
+			if (containsMUS(candidate)) {
+				continue;
+			}
+			ConstraintSet cset = fact.createSet();
+			for (int i = candidate.nextSetBit(0); i >= 0; i = candidate.nextSetBit(i + 1)) {
+				cset.add(fact.getConstraint(i));
+			}
+			ACQ_Network net = new ACQ_Network(fact, cset);
+			if (satisfiable(net)) {
+				seed = net;
 				haveSeed = true;
 				break;
 			}
 			else {
-				muses.add(candidate);
+				muses.add(net);
+				musBits.add(candidate);
 			}
 		}
 		
@@ -148,6 +158,19 @@ public class DAA extends MSSIter {
 		
 	}
 	
+	/*
+	 * true if set includes an unsatisfiable candidate, 
+	 * then set is unsatisfiable too
+	 */
+	protected boolean containsMUS(BitSet set) {
+		for (BitSet mus : musBits) {
+			BitSet tmp = (BitSet) mus.clone();
+			tmp.andNot(set);
+			if (tmp.isEmpty()) return true;
+		}
+		return false;
+	}
+	
 	public ACQ_Network getComplete(ACQ_Network value) {
 		ConstraintFactory fact = value.getFactory();
 		ACQ_Network all = new ACQ_Network(fact, value, value.getVariables());
@@ -180,79 +203,4 @@ public class DAA extends MSSIter {
 			return seed;
 		}
 	}
-	
-	protected <T> ArrayList<T> dup(ArrayList<T> l) {
-		ArrayList<T> res = new ArrayList<>();
-		for (T e : l) {
-			res.add(e);
-		}
-		return res;
-	}
-	
-	protected ArrayList<ACQ_Network> hittingSets(ArrayList<ACQ_Network> sets) throws TimeoutException {
-		assert sets.size() > 0;
-		ACQ_Network elem = sets.remove(0);
-		ArrayList<ACQ_Network> elemset = new ArrayList<>();
-		
-		for (ACQ_IConstraint c : elem) {
-			istimeouted();
-			ConstraintSet cset = elem.getFactory().createSet(c);
-			ACQ_Network newnet = new ACQ_Network(elem.getFactory(), elem.getVariables(), cset);
-			elemset.add(newnet);
-		}
-		
-		if (sets.size() == 0) {	
-			return elemset;
-		}
-		else {
-			return minimum(cross(hittingSets(sets), elemset));
-		}
-	}
-	
-	protected ArrayList<ACQ_Network> minimum(ArrayList<ACQ_Network> g) throws TimeoutException {
-		ArrayList<ACQ_Network> res = new ArrayList<ACQ_Network>();
-		for (ACQ_Network s : g) {
-			boolean toadd = true;
-			for (ACQ_Network t : g) {
-				istimeouted();
-				if (issubset(t, s) && !t.equals(s)) {
-					toadd = false;
-					break;
-				}
-			}
-			if (toadd) {
-				res.add(s);
-			}
-		}
-		return res;
-	}
-	
-	protected boolean issubset(ACQ_Network l1, ACQ_Network l2) throws TimeoutException {
-		for (ACQ_IConstraint a : l1) {
-			boolean in = false;
-			for (ACQ_IConstraint b : l2) {
-				istimeouted();
-				if (a.equals(b)) {
-					in = true;
-					break;
-				}
-			}
-			if (!in) return false;
-		}
-		return true;
-	}
-	
-	protected ArrayList<ACQ_Network> cross(ArrayList<ACQ_Network> a, ArrayList<ACQ_Network> b) throws TimeoutException {
-		ArrayList<ACQ_Network> res = new ArrayList<ACQ_Network>();
-		for (ACQ_Network ai : a) {
-			for (ACQ_Network bj : b) {
-				istimeouted();
-				ConstraintSet cset = ai.getFactory().createSet(ai.getConstraints());
-				cset.addAll(bj.getConstraints());
-				ACQ_Network newnet = new ACQ_Network(ai.getFactory(), cset);
-				res.add(newnet);
-			}
-		}
-		return res;
-	}
-}	
+}
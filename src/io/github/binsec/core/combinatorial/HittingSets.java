@@ -0,0 +1,105 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.combinatorial;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Minimal hitting sets of a growing family of sets, maintained with 
+ * Berge's algorithm: adding a set only extends the hitting sets that miss it.
+ */
+public class HittingSets {
+	
+	protected ArrayList<BitSet> transversals = null; // null while the family is empty
+	
+	/*
+	 * Add set to the family and update its minimal hitting sets. The update can
+	 * blow up, it throws a TimeoutException once deadline (a time in ms, null 
+	 * for none) is passed and then leaves the hitting sets unchanged
+	 */
+	public void add(BitSet set, Long deadline) throws TimeoutException {
+		ArrayList<BitSet> res = new ArrayList<>();
+		if (transversals == null) {
+			for (int e = set.nextSetBit(0); e >= 0; e = set.nextSetBit(e + 1)) {
+				BitSet single = new BitSet();
+				single.set(e);
+				res.add(single);
+			}
+			transversals = res;
+			return;
+		}
+		
+		ArrayList<BitSet> miss = new ArrayList<>();
+		for (BitSet t : transversals) {
+			if (t.intersects(set)) {
+				res.add(t);
+			}
+			else {
+				miss.add(t);
+			}
+		}
+		
+		// t + e is minimal unless a hitting set kept above is included in it,
+		// two such extensions are either equal or incomparable
+		int nkept = res.size();
+		HashSet<BitSet> seen = new HashSet<>();
+		for (BitSet t : miss) {
+			if (deadline != null && deadline <= System.currentTimeMillis()) {
+				throw new TimeoutException();
+			}
+			for (int e = set.nextSetBit(0); e >= 0; e = set.nextSetBit(e + 1)) {
+				BitSet cand = (BitSet) t.clone();
+				cand.set(e);
+				if (seen.add(cand) && !hasSubset(res, nkept, cand)) {
+					res.add(cand);
+				}
+			}
+		}
+		transversals = res;
+	}
+	
+	private boolean hasSubset(ArrayList<BitSet> sets, int n, BitSet set) {
+		for (int i = 0; i < n; i++) {
+			BitSet tmp = (BitSet) sets.get(i).clone();
+			tmp.andNot(set);
+			if (tmp.isEmpty()) return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Minimal hitting sets of the family, the empty set when the family is empty
+	 */
+	public List<BitSet> get() {
+		if (transversals == null) {
+			ArrayList<BitSet> res = new ArrayList<>();
+			res.add(new BitSet());
+			return res;
+		}
+		return transversals;
+	}
+}
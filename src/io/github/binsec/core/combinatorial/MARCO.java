@@ -22,7 +22,12 @@
 
 package io.github.binsec.core.combinatorial;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
@@ -35,6 +40,7 @@ import io.github.binsec.core.acqconstraint.Formula;
 import io.github.binsec.core.acqconstraint.Unit;
 import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
 import io.github.binsec.core.acqsolver.ACQ_ConstraintSolver;
+import io.github.binsec.core.acqsolver.ACQ_SolverPool;
 import io.github.binsec.core.acqsolver.SATModel;
 import io.github.binsec.core.acqsolver.SATSolver;
 import io.github.binsec.core.learner.ACQ_Bias;
@@ -53,6 +59,11 @@ public class MARCO extends MSSIter {
 	protected SATSolver satsolver;
 	
 	protected ArrayList<ACQ_Network> muses = new ArrayList<>();
+	/*
+	 * Constraints of the MUSes and MSSes found so far
+	 */
+	protected ArrayList<BitSet> musBits = new ArrayList<>();
+	protected ArrayList<BitSet> mssBits = new ArrayList<>();
 	
 	protected Formula formula;
 	
@@ -61,11 +72,35 @@ public class MARCO extends MSSIter {
 	
 	protected boolean grow2 = true;
 	
+	/*
+	 * Solvers exploring several seeds at once, null when seeds are explored 
+	 * one at a time
+	 */
+	protected ACQ_SolverPool pool = null;
+	protected ArrayDeque<ACQ_Query> pending = new ArrayDeque<>();
+	
+	/*
+	 * Outcome of the exploration of a seed: either a MSS and its solution, or a MUS
+	 */
+	protected static class Explored {
+		ACQ_Query query = null;
+		ACQ_Network mss = null;
+		ACQ_Network mus = null;
+	}
+	
 	public MARCO(ACQ_Bias bias, ACQ_Network net, 
 			ACQ_ConstraintSolver solver, SATSolver satsolver, 
 			ConstraintMapping mapping, ContradictionSet backgroundKnowledge, ACQ_Bias known, 
 			Long timeout, boolean grow2, Chrono chrono) throws TimeoutException {
+		this(bias, net, solver, satsolver, mapping, backgroundKnowledge, known, timeout, grow2, chrono, null);
+	}
+	
+	public MARCO(ACQ_Bias bias, ACQ_Network net, 
+			ACQ_ConstraintSolver solver, SATSolver satsolver, 
+			ConstraintMapping mapping, ContradictionSet backgroundKnowledge, ACQ_Bias known, 
+			Long timeout, boolean grow2, Chrono chrono, ACQ_SolverPool pool) throws TimeoutException {
 		this.timeout = timeout;
+		this.pool = pool;
 		t0 = System.currentTimeMillis();
 		this.solver = solver;
 		this.satsolver = satsolver;
@@ -130,12 +165,35 @@ public class MARCO extends MSSIter {
 	}
 	
 	
-	private ACQ_Query solve(ACQ_Network net) {
+	private ACQ_Query solve(ACQ_Network net, ACQ_ConstraintSolver solver) {
 		return solver.solveQ(concat(basenet, concat(net, known.getNetwork())));
 	}
 	
-	private boolean satisfiable(ACQ_Network net) {
-		return !solver.solveQ(concat(basenet, concat(net, known.getNetwork()))).isEmpty();
+	private boolean satisfiable(ACQ_Network net, ACQ_ConstraintSolver solver) {
+		Boolean res = deduce(net);
+		if (res != null) {
+			return res;
+		}
+		return solver.solve(concat(basenet, concat(net, known.getNetwork())));
+	}
+	
+	/*
+	 * Satisfiability of net deduced from the MUSes and MSSes found so far:
+	 * false if it contains a MUS, true if it is included in a MSS, null otherwise
+	 */
+	protected Boolean deduce(ACQ_Network net) {
+		BitSet bits = net.getConstraints().toBitSet();
+		for (BitSet mus : musBits) {
+			BitSet tmp = (BitSet) mus.clone();
+			tmp.andNot(bits);
+			if (tmp.isEmpty()) return false;
+		}
+		for (BitSet mss : mssBits) {
+			BitSet tmp = (BitSet) bits.clone();
+			tmp.andNot(mss);
+			if (tmp.isEmpty()) return true;
+		}
+		return null;
 	}
 	
 	protected ACQ_Network concat(ACQ_Network net1, ACQ_Network net2) {
@@ -154,6 +212,12 @@ public class MARCO extends MSSIter {
 		chrono.start("enum_mss");
 		ACQ_Query res = next;
 		
+		if (pool != null) {
+			next = nextParallel();
+			chrono.stop("enum_mss");
+			return res;
+		}
+		
 		while (true) {
 			istimeouted();
 			SATModel model = satsolver.solve(formula);
@@ -166,7 +230,7 @@ public class MARCO extends MSSIter {
 			if (model != null) {
 				ACQ_Network seed = toNetwork(model);
 				
-				ACQ_Query query = solve(seed);
+				ACQ_Query query = solve(seed, solver);
 				if (!query.isEmpty()) {
 					ACQ_Network mss;
 					if (grow2) {
@@ -174,17 +238,19 @@ public class MARCO extends MSSIter {
 						next = query;
 					}
 					else {
-						mss = grow(seed, bias);
-						next = solve(mss);	
+						mss = grow(seed, bias, solver);
+						next = solve(mss, solver);	
 					}
 					
+					mssBits.add(mss.getConstraints().toBitSet());
 					formula.addClause(blockDown(mss));
 					break;
 				}
 				else {
 					chrono.start("number_of_muses");
-					ACQ_Network mus = shrink(seed, bias);
+					ACQ_Network mus = shrink(seed, bias, solver);
 					muses.add(mus);
+					musBits.add(mus.getConstraints().toBitSet());
 					formula.addClause(blockUp(mus));
 					chrono.stop("number_of_muses");
 				}
@@ -199,17 +265,137 @@ public class MARCO extends MSSIter {
 		return res;
 	}
 	
-	protected ACQ_Network grow(ACQ_Network seed, ACQ_Bias bias) throws TimeoutException {
-		ACQ_Bias diff = bias.copy();
-		diff.reduce(seed.getConstraints());
-		
-		for (ACQ_IConstraint c : diff.getNetwork()) {
+	/*
+	 * Same as next but up to one seed per solver of the pool is explored at once. 
+	 * Seeds of a round are pairwise distinct, the clauses blocking their MSSes 
+	 * and MUSes are added to formula once the whole round is explored.
+	 */
+	protected ACQ_Query nextParallel() throws TimeoutException {
+		while (pending.isEmpty()) {
 			istimeouted();
-			ConstraintSet cset = seed.getFactory().createSet(seed.getConstraints());
-			cset.add(c);
-			ACQ_Network union = new ACQ_Network(seed.getFactory(), cset);
-			if (satisfiable(union)) {
-				seed.add(c, true);
+			Formula round = formula.copy();
+			ArrayList<ACQ_Network> seeds = new ArrayList<>();
+			for (int k = 0; k < pool.getNbWorkers(); k++) {
+				SATModel model = satsolver.solve(round);
+				if (satsolver.isTimeoutReached()) {
+					assert false: "Sat solver timeouted";
+					return null;
+				}
+				if (model == null) {
+					break;
+				}
+				ACQ_Network seed = toNetwork(model);
+				seeds.add(seed);
+				round.addClause(blockSeed(seed));
+			}
+			if (seeds.isEmpty()) {
+				return null;
+			}
+			
+			ArrayList<CompletableFuture<Explored>> explorations = new ArrayList<>();
+			for (ACQ_Network seed : seeds) {
+				explorations.add(pool.submit((ACQ_ConstraintSolver worker) -> {
+					try {
+						return explore(seed, worker);
+					} catch (TimeoutException e) {
+						throw new CompletionException(e);
+					}
+				}));
+			}
+			
+			// the workers read mssBits and musBits in deduce, so they are only
+			// updated once every exploration of the round is over
+			ArrayList<Explored> explored = new ArrayList<>();
+			TimeoutException timeout = null;
+			for (CompletableFuture<Explored> exploration : explorations) {
+				try {
+					explored.add(exploration.join());
+				} catch (CompletionException e) {
+					if (e.getCause() instanceof TimeoutException) {
+						if (timeout == null) timeout = (TimeoutException) e.getCause();
+					}
+					else {
+						throw e;
+					}
+				}
+			}
+			if (timeout != null) {
+				throw timeout;
+			}
+			
+			// distinct seeds may lead to the same MSS or MUS
+			HashSet<BitSet> found = new HashSet<>();
+			for (Explored res : explored) {
+				if (res.mss != null) {
+					if (found.add(res.mss.getConstraints().toBitSet())) {
+						mssBits.add(res.mss.getConstraints().toBitSet());
+						formula.addClause(blockDown(res.mss));
+						pending.add(res.query);
+					}
+				}
+				else if (found.add(res.mus.getConstraints().toBitSet())) {
+					chrono.start("number_of_muses");
+					muses.add(res.mus);
+					musBits.add(res.mus.getConstraints().toBitSet());
+					formula.addClause(blockUp(res.mus));
+					chrono.stop("number_of_muses");
+				}
+			}
+		}
+		return pending.poll();
+	}
+	
+	protected Explored explore(ACQ_Network seed, ACQ_ConstraintSolver solver) throws TimeoutException {
+		Explored res = new Explored();
+		ACQ_Query query = solve(seed, solver);
+		if (!query.isEmpty()) {
+			if (grow2) {
+				res.mss = grow(query, seed, bias);
+				res.query = query;
+			}
+			else {
+				res.mss = grow(seed, bias, solver);
+				res.query = solve(res.mss, solver);
+			}
+		}
+		else {
+			res.mus = shrink(seed, bias, solver);
+		}
+		return res;
+	}
+	
+	/*
+	 * Extends a satisfiable seed with the constraints satisfied by a solution maximizing 
+	 * their number, then with the remaining ones one by one if the optimum is not proven
+	 */
+	protected ACQ_Network grow(ACQ_Network seed, ACQ_Bias bias, ACQ_ConstraintSolver solver) throws TimeoutException {
+		ConstraintFactory fact = seed.getFactory();
+		ConstraintSet diff = fact.createSet(bias.getNetwork().getConstraints());
+		diff.removeAll(seed.getConstraints());
+		
+		ACQ_Query query = solver.solveMax(concat(basenet, concat(seed, known.getNetwork())), 
+				new ACQ_Network(fact, diff));
+		boolean optimal = query != null && !query.isEmpty() && !solver.isTimeoutReached();
+		if (query != null && !query.isEmpty()) {
+			for (ACQ_IConstraint c : diff) {
+				if (c.getEvaluator().check(query)) {
+					seed.add(c, true);
+				}
+			}
+		}
+		
+		if (!optimal) {
+			for (ACQ_IConstraint c : diff) {
+				istimeouted();
+				if (seed.contains(c)) {
+					continue;
+				}
+				ConstraintSet cset = fact.createSet(seed.getConstraints());
+				cset.add(c);
+				ACQ_Network union = new ACQ_Network(fact, cset);
+				if (satisfiable(union, solver)) {
+					seed.add(c, true);
+				}
 			}
 		}
 		
@@ -230,7 +416,7 @@ public class MARCO extends MSSIter {
 		for (ACQ_IConstraint c : diff.getNetwork()) {
 			istimeouted();
 			
-			if (c.check(query)) {
+			if (c.getEvaluator().check(query)) {
 				seed.add(c, true);
 			}
 		}
@@ -243,24 +429,50 @@ public class MARCO extends MSSIter {
 		}
 	}
 	
-	protected ACQ_Network shrink(ACQ_Network seed, ACQ_Bias C) throws TimeoutException {
+	/*
+	 * MUS of an unsatisfiable seed, extracted by QuickXplain
+	 */
+	protected ACQ_Network shrink(ACQ_Network seed, ACQ_Bias C, ACQ_ConstraintSolver solver) throws TimeoutException {
 		ConstraintFactory fact = bias.getNetwork().getFactory();
-		ACQ_Network res = new ACQ_Network(fact, bias.getVars());
-		res.addAll(seed, true);
+		ACQ_Network empty = new ACQ_Network(fact, bias.getVars());
+		if (seed.size() == 0) {
+			return empty;
+		}
+		return quick(empty, empty, seed, solver);
+	}
+	
+	protected ACQ_Network quick(ACQ_Network b, ACQ_Network delta, ACQ_Network c, 
+			ACQ_ConstraintSolver solver) throws TimeoutException {
+		istimeouted();
+		ConstraintFactory fact = bias.getNetwork().getFactory();
+		if (delta.size() != 0 && !satisfiable(b, solver)) {
+			return new ACQ_Network(fact, bias.getVars());
+		}
+		if (c.size() == 1) {
+			return c;
+		}
 		
-		for (ACQ_IConstraint constr : seed) {
-			istimeouted();
-			ACQ_Network seedminus = new ACQ_Network(fact, bias.getVars());
-			seedminus.addAll(res, true);
-			seedminus.remove(constr);
-			
-			if (!satisfiable(seedminus)) {
-				res.remove(constr);
+		ACQ_Network c1 = new ACQ_Network(fact, bias.getVars());
+		ACQ_Network c2 = new ACQ_Network(fact, bias.getVars());
+		int i = 0;
+		for (ACQ_IConstraint constr : c) {
+			if (i < c.size() / 2) {
+				c1.add(constr, true);
 			}
-			
+			else {
+				c2.add(constr, true);
+			}
+			i += 1;
 		}
 		
-		return res;
+		ACQ_Network b_union_c1 = concat(b, c1);
+		ACQ_Network delta2 = quick(b_union_c1, c1, c2, solver);
+		
+		ACQ_Network b_union_delta2 = concat(b, delta2);
+		ACQ_Network delta1 = quick(b_union_delta2, delta2, c1, solver);
+		
+		delta1.addAll(delta2, true);
+		return delta1;
 	}
 	
 	private Clause blockDown(ACQ_Network mss) {
@@ -273,6 +485,21 @@ public class MARCO extends MSSIter {
 		return res;
 	}
 	
+	/*
+	 * Clause forbidding exactly the seed
+	 */
+	private Clause blockSeed(ACQ_Network seed) {
+		Clause res = new Clause();
+		for (ACQ_IConstraint constr : bias.getNetwork()) {
+			Unit u = mapping.get(constr).clone();
+			if (seed.contains(constr)) {
+				u.setNeg();
+			}
+			res.add(u);
+		}
+		return res;
+	}
+	
 	private Clause blockUp(ACQ_Network mss) {
 		Clause res = new Clause();
 		for (ACQ_IConstraint constr : mss) {
@@ -27,9 +27,12 @@
  */
 package io.github.binsec.core.learner;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
 import io.github.binsec.core.acqconstraint.ACQ_Network;
@@ -46,6 +49,24 @@ public class ACQ_Bias {
 	public final ACQ_Network network;
 	protected int initial_size;
 	public boolean multiarity = false;
+	/*
+	 * Kappa of the queries already seen and the constraints of this bias
+	 * it was computed on. Constraints are only removed from a bias in 
+	 * general, the kappa of a query on a subset of these constraints is 
+	 * the intersection of its kappa with the subset.
+	 */
+	protected final Map<ACQ_Query, Kappa> kappas = Collections.synchronizedMap(new WeakHashMap<>());
+	protected ConstraintSet lastConstraints = null; // shared by the kappas computed on the same constraints
+	
+	protected static class Kappa {
+		final ConstraintSet on;
+		final ConstraintSet kappa;
+		
+		Kappa(ConstraintSet on, ConstraintSet kappa) {
+			this.on = on;
+			this.kappa = kappa;
+		}
+	}
 
 	/**
 	 * Constructor of the bias from a network
@@ -64,13 +85,7 @@ public class ACQ_Bias {
 	 * @return size of the smallest scope
 	 */
 	public int computeMinArity() {
-		int minArity = Integer.MAX_VALUE;
-		for (ACQ_IConstraint constraint : network.getConstraints()) {
-			if (constraint.getArity() < minArity) {
-				minArity = constraint.getArity();
-			}
-		}
-		return minArity;
+		return network.getConstraints().getMinArity();
 	}
 
 	/**
@@ -79,13 +94,7 @@ public class ACQ_Bias {
 	 * @return size of the largest scope
 	 */
 	public int computeMaxArity() {
-		int maxArity = Integer.MIN_VALUE;
-		for (ACQ_IConstraint constraint : network.getConstraints()) {
-			if (constraint.getArity() > maxArity) {
-				maxArity = constraint.getArity();
-			}
-		}
-		return maxArity;
+		return network.getConstraints().getMaxArity();
 	}
 
 	public boolean getBiasAritics() {
@@ -113,6 +122,16 @@ public class ACQ_Bias {
 		return network.getConstraints();
 	}
 
+	/**
+	 * Returns the sets of constraints violated by the queries of a chunk
+	 * 
+	 * @param batch Positive or negative examples of the same scope
+	 * @return set of constraints violated by the query of each row
+	 */
+	public ConstraintSet[] getKappa(QueryBatch batch) {
+		return network.getConstraints().getKappa(batch);
+	}
+
 	/**
 	 * Returns the set of constraints violated by query_bgd
 	 * 
@@ -120,7 +139,22 @@ public class ACQ_Bias {
 	 * @return set of constraints violated by query_bgd
 	 */
 	public ConstraintSet getKappa(ACQ_Query query_bgd) {
-		return network.getConstraints().getKappa(query_bgd);
+		ConstraintSet constraints = network.getConstraints();
+		Kappa cached = kappas.get(query_bgd);
+		if (cached != null && constraints.isSubsetOf(cached.on)) {
+			ConstraintSet res = network.getFactory().createSet(cached.kappa);
+			res.retainAll(constraints);
+			return res;
+		}
+		
+		ConstraintSet res = constraints.getKappa(query_bgd);
+		synchronized (kappas) {
+			if (lastConstraints == null || !lastConstraints.equals(constraints)) {
+				lastConstraints = network.getFactory().createSet(constraints);
+			}
+			kappas.put(query_bgd, new Kappa(lastConstraints, network.getFactory().createSet(res)));
+		}
+		return res;
 	}
 
 	/**
@@ -243,8 +277,9 @@ public class ACQ_Bias {
 	}
 	
 	public ACQ_Bias copy() {
+		// shares the constraints of this bias until one of them is reduced
 		ACQ_Network network = new ACQ_Network(this.getNetwork().getFactory(), 
-				this.getVars(), this.getConstraints());
+				this.getNetwork(), this.getVars());
 		return new ACQ_Bias(network);
 	}
 
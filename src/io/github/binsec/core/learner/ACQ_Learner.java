@@ -22,7 +22,7 @@
 
 package io.github.binsec.core.learner;
 
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 
@@ -37,7 +37,7 @@ public class ACQ_Learner implements ILearner {
 	 * @return true if the query e is positive
 	 */
 
-	public ArrayList<ACQ_Query> memory = new ArrayList<>();
+	public QueryMemory memory = new QueryMemory();
 
 	boolean memory_enabled = true;
 
@@ -53,6 +53,17 @@ public class ACQ_Learner implements ILearner {
 		// TODO Auto-generated method stub
 		return Answer.NO;
 	}
+	
+	/**
+	 * Submit the query e to this learner without waiting for its classification.
+	 * By default the query is classified by the calling thread.
+	 * 
+	 * @param e Example to classify as positive or negative
+	 * @return future answer of the learner
+	 */
+	public CompletableFuture<Answer> submit(ACQ_Query e) {
+		return CompletableFuture.completedFuture(ask(e));
+	}
 
 	/**
 	 * 
@@ -60,14 +71,7 @@ public class ACQ_Learner implements ILearner {
 	 */
 	public synchronized Answer ask_query(ACQ_Query example) {
 
-		Answer asked_query = Answer.NO;
-		if (memory_enabled && !memory.isEmpty())
-			for (ACQ_Query tmp : memory)
-				if ((example.extend(tmp) && tmp.isNegative()) || tmp.extend(example) && tmp.isPositive()) {
-					example.classify_as(tmp);
-					asked_query=Answer.YES;
-					break;
-				}
+		Answer asked_query = recall(example) ? Answer.YES : Answer.NO;
 		if (!example.isClassified()) {
 			ask(example);
 			if (memory_enabled)
@@ -78,7 +82,24 @@ public class ACQ_Learner implements ILearner {
 	}
 
 
-	private synchronized void add_memory(ACQ_Query example) {
+	/**
+	 * Classify example from the queries already in memory
+	 * 
+	 * @param example
+	 * @return true if a query in memory determines the classification of example
+	 */
+	protected boolean recall(ACQ_Query example) {
+		if (memory_enabled && !memory.isEmpty()) {
+			ACQ_Query tmp = memory.find(example);
+			if (tmp != null) {
+				example.classify_as(tmp);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected void add_memory(ACQ_Query example) {
 		memory.add(example);
 	}
 
@@ -99,4 +120,10 @@ public class ACQ_Learner implements ILearner {
 		
 	}
 
+	/**
+	 * Release the resources held by this learner once no more query is asked
+	 */
+	public void close() {
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.learner;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ *
+ * Learner dispatching queries to a pool of oracles, each oracle answering
+ * at most one query at a time. Up to one query per oracle is classified
+ * concurrently.
+ *
+ */
+public class ACQ_PoolLearner extends ACQ_Learner {
+
+	protected List<ACQ_Learner> oracles;
+	protected BlockingQueue<ACQ_Learner> idle;
+	protected ExecutorService executor;
+	protected int nbworkers;
+
+	public ACQ_PoolLearner(List<ACQ_Learner> oracles) {
+		assert oracles.size() > 0 : "pool must contain at least one oracle";
+		this.nbworkers = oracles.size();
+		this.oracles = oracles;
+		this.idle = new LinkedBlockingQueue<>(oracles);
+		this.executor = Executors.newFixedThreadPool(oracles.size(), (Runnable r) -> {
+			Thread t = new Thread(r, "oracle-worker");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public int getNbWorkers() {
+		return nbworkers;
+	}
+
+	@Override
+	public CompletableFuture<Answer> submit(ACQ_Query e) {
+		return CompletableFuture.supplyAsync(() -> {
+			ACQ_Learner oracle;
+			try {
+				oracle = idle.take();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(ex);
+			}
+			try {
+				return oracle.ask(e);
+			}
+			finally {
+				idle.add(oracle);
+			}
+		}, executor);
+	}
+
+	@Override
+	public Answer ask(ACQ_Query e) {
+		return submit(e).join();
+	}
+
+	/*
+	 * Same as ACQ_Learner.ask_query without the learner lock: the memory
+	 * is thread safe and the oracles are only used by one query at a time
+	 */
+	@Override
+	public Answer ask_query(ACQ_Query example) {
+		Answer asked_query = recall(example) ? Answer.YES : Answer.NO;
+		if (!example.isClassified()) {
+			ask(example);
+			if (memory_enabled)
+				add_memory(example);
+		}
+		return asked_query;
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public void close() {
+		shutdown();
+		for (ACQ_Learner oracle : oracles) {
+			oracle.close();
+		}
+	}
+}
@@ -26,7 +26,7 @@
 package io.github.binsec.core.learner;
 
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.BitSet;
 
 /**
  * A query is a potential solution that is submitted to the solver. It can be a positive or a negative example.
@@ -52,6 +52,10 @@ public class ACQ_Query implements Cloneable {
 	 * Values for these variables
 	 */
 	public final int[] values;
+	/**
+	 * Position in values of each variable, -1 outside the scope, built on first use
+	 */
+	private volatile int[] positions;
 
 	/**
 	 * Constructor for a query from a scope and a set of values
@@ -124,12 +128,29 @@ public class ACQ_Query implements Cloneable {
 	 * @return Value of the variable in this query
 	 */
 	public int getValue(int numvar){
-		int index=0;
-		for(Iterator<Integer> it=scope.iterator();it.hasNext();index++)
-		{
-			if(numvar==it.next()) return values[index];
+		int index = indexOf(numvar);
+		return index < 0 ? -1 : values[index];
+	}
+
+	/**
+	 * Returns the position of the specified variable in the values of this query
+	 * 
+	 * @param numvar Identify the variable
+	 * @return Position of the variable, -1 if it is not in the scope of this query
+	 */
+	public int indexOf(int numvar) {
+		int[] pos = positions;
+		if (pos == null) {
+			BitSet vars = scope.getVariables();
+			pos = new int[vars.length()];
+			Arrays.fill(pos, -1);
+			int index = 0;
+			for (int var = vars.nextSetBit(0); var >= 0; var = vars.nextSetBit(var + 1)) {
+				pos[var] = index++;
+			}
+			positions = pos;
 		}
-		return -1;
+		return numvar >= 0 && numvar < pos.length ? pos[numvar] : -1;
 	}
 
 
@@ -24,6 +24,7 @@ package io.github.binsec.core.learner;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class is a wrapper to observe a given learner with a PropertyChangeListener
@@ -43,6 +44,21 @@ public class ObservedLearner extends ACQ_Learner {
 		return ret;
 	}
 	
+	@Override
+	public CompletableFuture<Answer> submit(ACQ_Query e) {
+		if (learner instanceof ACQ_Learner) {
+			return ((ACQ_Learner) learner).submit(e).thenApply((Answer ret) -> {
+				fireAsk(ret, e);
+				return ret;
+			});
+		}
+		return super.submit(e);
+	}
+	
+	private synchronized void fireAsk(Answer ret, ACQ_Query e) {
+		pcs.firePropertyChange("ASK", ret, e);
+	}
+	
 	public Answer ask(ACQ_Query e, boolean fromMSS) {
 		Answer ret = learner.ask(e);
 		pcs.firePropertyChange(fromMSS ? "ASK_MSS" : "ASK", ret, e);
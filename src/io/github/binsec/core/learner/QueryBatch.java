@@ -0,0 +1,128 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.learner;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 
+ * Chunk of classified queries of the same scope, stored by columns: the 
+ * values of each variable of the scope are contiguous, so that a constraint
+ * can be evaluated on all the queries of the chunk in a single loop.
+ *
+ */
+public class QueryBatch {
+
+	protected final ACQ_Scope scope;
+	protected final int[] vars; // variables of the scope, in the order of the values of the queries
+	protected final int[][] columns; // values of each variable, null outside the scope
+	protected final ACQ_Query[] queries;
+	protected final BitSet positive = new BitSet();
+	protected int[] missing = null; // values of the variables outside the scope
+	protected int size = 0;
+
+	public QueryBatch(ACQ_Scope scope, int capacity) {
+		this.scope = scope;
+		BitSet bs = scope.getVariables();
+		vars = new int[bs.cardinality()];
+		columns = new int[bs.length()][];
+		int i = 0;
+		for (int var = bs.nextSetBit(0); var >= 0; var = bs.nextSetBit(var + 1)) {
+			vars[i++] = var;
+			columns[var] = new int[capacity];
+		}
+		queries = new ACQ_Query[capacity];
+	}
+
+	/**
+	 * Adds a query at the end of this chunk
+	 * 
+	 * @param query a classified query
+	 * @return false if this chunk is full or query has another scope
+	 */
+	public boolean add(ACQ_Query query) {
+		if (size == queries.length || !scope.equals(query.scope)) return false;
+		for (int i = 0; i < vars.length; i++) {
+			columns[vars[i]][size] = query.values[i];
+		}
+		positive.set(size, query.isPositive());
+		queries[size++] = query;
+		return true;
+	}
+
+	/**
+	 * Empties this chunk, keeping its columns
+	 */
+	public void clear() {
+		Arrays.fill(queries, 0, size, null);
+		positive.clear();
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public ACQ_Scope getScope() {
+		return scope;
+	}
+
+	public ACQ_Query getQuery(int row) {
+		assert row < size;
+		return queries[row];
+	}
+
+	public boolean isPositive(int row) {
+		return positive.get(row);
+	}
+
+	/**
+	 * Values of the specified variable in the queries of this chunk, as
+	 * returned by ACQ_Query.getValue. Only the first size() are relevant.
+	 * 
+	 * @param numvar Identify the variable
+	 * @return Column of the variable
+	 */
+	public int[] getColumn(int numvar) {
+		if (numvar >= 0 && numvar < columns.length && columns[numvar] != null) {
+			return columns[numvar];
+		}
+		if (missing == null) {
+			missing = new int[queries.length];
+			Arrays.fill(missing, -1);
+		}
+		return missing;
+	}
+
+	/**
+	 * Values at the specified position in the queries of this chunk, as
+	 * read from ACQ_Query.values
+	 * 
+	 * @param index Position in the values of a query
+	 * @return Column of the values at this position
+	 */
+	public int[] getRawColumn(int index) {
+		return columns[vars[index]];
+	}
+}
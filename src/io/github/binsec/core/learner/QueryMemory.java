@@ -0,0 +1,154 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.learner;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 
+ * Classified queries of a learner, indexed by scope and tuple.
+ * 
+ * A query is negative if it extends a negative query of the memory, and 
+ * positive if a positive query of the memory extends it. Lookups only visit
+ * the scopes of the memory, not its queries, and do not lock the memory.
+ *
+ */
+public class QueryMemory {
+
+	/*
+	 * Negative and positive queries of each scope, by tuple
+	 */
+	protected final ConcurrentHashMap<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> negatives = new ConcurrentHashMap<>();
+	protected final ConcurrentHashMap<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> positives = new ConcurrentHashMap<>();
+	/*
+	 * Positive queries of a scope by their projection on a smaller scope, 
+	 * built on the first lookup of a query of that smaller scope
+	 */
+	protected final ConcurrentHashMap<BitSet, ConcurrentHashMap<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>>> projections = new ConcurrentHashMap<>();
+	protected volatile int size = 0;
+
+	/*
+	 * Tuple of values usable as a key
+	 */
+	protected static final class Tuple {
+		final int[] values;
+		final int hash;
+
+		Tuple(int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Tuple && Arrays.equals(values, ((Tuple) obj).values);
+		}
+	}
+
+	public synchronized void add(ACQ_Query query) {
+		BitSet scope = (BitSet) query.getScope().getVariables().clone();
+		Tuple tuple = new Tuple(query.getTuple());
+		if (query.isNegative()) {
+			negatives.computeIfAbsent(scope, k -> new ConcurrentHashMap<>()).putIfAbsent(tuple, query);
+		}
+		else {
+			positives.computeIfAbsent(scope, k -> new ConcurrentHashMap<>()).putIfAbsent(tuple, query);
+			Map<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> index = projections.get(scope);
+			if (index != null) {
+				for (Map.Entry<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> e : index.entrySet()) {
+					e.getValue().putIfAbsent(new Tuple(query.getProjection(new ACQ_Scope(e.getKey()))), query);
+				}
+			}
+		}
+		size++;
+	}
+
+	/*
+	 * Query of the memory determining the classification of example, null if none
+	 */
+	public ACQ_Query find(ACQ_Query example) {
+		if (size == 0) return null;
+		BitSet scope = example.getScope().getVariables();
+
+		for (Map.Entry<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> e : negatives.entrySet()) {
+			BitSet sub = e.getKey();
+			if (isSubset(sub, scope)) {
+				int[] proj = sub.equals(scope) ? example.getTuple() : example.getProjection(new ACQ_Scope(sub));
+				ACQ_Query res = e.getValue().get(new Tuple(proj));
+				if (res != null) return res;
+			}
+		}
+
+		Tuple tuple = new Tuple(example.getTuple());
+		for (Map.Entry<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> e : positives.entrySet()) {
+			BitSet sup = e.getKey();
+			if (isSubset(scope, sup)) {
+				ACQ_Query res = sup.equals(scope) ? e.getValue().get(tuple) : projection(sup, scope).get(tuple);
+				if (res != null) return res;
+			}
+		}
+		return null;
+	}
+
+	protected ConcurrentHashMap<Tuple, ACQ_Query> projection(BitSet sup, BitSet sub) {
+		Map<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> built = projections.get(sup);
+		ConcurrentHashMap<Tuple, ACQ_Query> res = built != null ? built.get(sub) : null;
+		if (res != null) return res;
+		synchronized (this) {
+			ConcurrentHashMap<BitSet, ConcurrentHashMap<Tuple, ACQ_Query>> index = 
+					projections.computeIfAbsent(sup, k -> new ConcurrentHashMap<>());
+			res = index.get(sub);
+			if (res == null) {
+				res = new ConcurrentHashMap<>();
+				ACQ_Scope scope = new ACQ_Scope((BitSet) sub.clone());
+				for (ACQ_Query query : positives.get(sup).values()) {
+					res.putIfAbsent(new Tuple(query.getProjection(scope)), query);
+				}
+				index.put((BitSet) sub.clone(), res);
+			}
+			return res;
+		}
+	}
+
+	protected static boolean isSubset(BitSet sub, BitSet sup) {
+		BitSet tmp = (BitSet) sub.clone();
+		tmp.andNot(sup);
+		return tmp.isEmpty();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
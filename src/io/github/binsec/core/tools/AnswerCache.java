@@ -0,0 +1,164 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+package io.github.binsec.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Disk-backed cache of emulation results, shared between runs.
+ * 
+ * There is one file per emulation setting (binary, binsec initialization, 
+ * cells, ...) named after its digest. Each record is the number of inputs,
+ * the inputs and the result, written as big-endian integers and one byte.
+ * The file is loaded in memory when opened and new results are appended.
+ * An incomplete last record, left by an interrupted run, is truncated 
+ * before appending.
+ */
+public class AnswerCache {
+	
+	/*
+	 * Caches opened in this run, so that several emulators 
+	 * with the same setting append to the same stream
+	 */
+	private static HashMap<File, AnswerCache> opened = new HashMap<>();
+	
+	protected File file;
+	protected HashMap<List<Integer>, Integer> answers = new HashMap<>();
+	protected DataOutputStream out = null;
+	
+	protected AnswerCache(File file) {
+		this.file = file;
+		if (!load())
+			return; // results are not saved
+		try {
+			// appended after the last complete record, see load
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public static synchronized AnswerCache open(File dir, String digest) {
+		dir.mkdirs();
+		File file = new File(dir, digest + ".cache");
+		AnswerCache cache = opened.get(file);
+		if (cache == null) {
+			cache = new AnswerCache(file);
+			opened.put(file, cache);
+			Runtime.getRuntime().addShutdownHook(new Thread(cache::close));
+		}
+		return cache;
+	}
+	
+	/*
+	 * Loads the complete records of the file and truncates it after them,
+	 * false if it could not be read or truncated
+	 */
+	protected boolean load() {
+		if (!file.exists())
+			return true;
+		
+		long length = file.length();
+		long valid = 0; // end of the last complete record
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (valid < length) {
+				int n = in.readInt();
+				// the record must fit in the rest of the file
+				if (n < 0 || 4L * n + 1 > length - valid - 4) {
+					System.err.println("[WARNING] incomplete record in " + file + " at offset " + valid);
+					break;
+				}
+				Integer[] inputs = new Integer[n];
+				for (int i = 0; i < n; i++) {
+					inputs[i] = in.readInt();
+				}
+				answers.put(Arrays.asList(inputs), (int) in.readByte());
+				valid += 4L * n + 5;
+			}
+		} catch (EOFException e) {
+			// truncated last record
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+		
+		if (valid < length) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(valid);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Return the cached result of the emulation on inputs, null if unknown
+	 */
+	public synchronized Integer get(Integer[] inputs) {
+		return answers.get(Arrays.asList(inputs));
+	}
+	
+	public synchronized void put(Integer[] inputs, int res) {
+		if (answers.put(Arrays.asList(inputs.clone()), res) != null || out == null)
+			return;
+		
+		try {
+			out.writeInt(inputs.length);
+			for (Integer input : inputs) {
+				out.writeInt(input);
+			}
+			out.writeByte(res);
+			out.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public synchronized int size() {
+		return answers.size();
+	}
+	
+	public synchronized void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			out = null;
+		}
+	}
+}
@@ -26,9 +26,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import io.github.binsec.core.acqvariable.CellType;
@@ -56,7 +61,20 @@ public class Binsec {
 	
 	Runtime runtime;
 	
+	boolean server = false;
+	Process standby = null;
+	File workdir = null;
+	AnswerCache cache = null;
+	
+	/* 
+	 * Outcomes of an emulation that did not complete: they are answered 
+	 * as before but never cached
+	 */
+	public static final int ERROR = -1;
+	protected static final int TIMEOUT = -2;
+	
 	public Binsec(String conffile, CellType[] types, boolean[] globals) {
+		String cachedir = null;
 		
 		this.types = types;
 		this.globals = globals;
@@ -83,14 +101,61 @@ public class Binsec {
             		Path filePath = Path.of(line.split(":")[1].strip());
             		binsec_init = Files.readString(filePath);
             	}
+            	else if (line.startsWith("oracle_server:")) {
+            		server = Boolean.parseBoolean(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("oracle_cache:")) {
+            		cachedir = line.split(":")[1].strip();
+            	}
             }
 
         } catch (IOException e) {
             System.err.format("IOException: %s%n", e);
         }
+		
+		if (server) {
+			runtime.addShutdownHook(new Thread(this::close));
+		}
+		
+		if (cachedir != null) {
+			String digest = digest();
+			if (digest != null) cache = AnswerCache.open(new File(cachedir), digest);
+		}
+	}
+	
+	/*
+	 * SHA-256 of everything but the inputs that changes the result of an emulation
+	 */
+	protected String digest() {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(Files.readAllBytes(Paths.get(binpath)));
+			md.update(String.valueOf(binsec_init).getBytes());
+			md.update(Arrays.toString(types).getBytes());
+			md.update(Arrays.toString(globals).getBytes());
+			md.update(Arrays.toString(addrs_global).getBytes());
+			md.update(emultimeout.toString().getBytes());
+			
+			StringBuilder res = new StringBuilder();
+			for (byte b : md.digest()) {
+				res.append(String.format("%02x", b));
+			}
+			return res.toString();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			e.printStackTrace();
+			return null;
+		}
 	}
 	
 	
+	/*
+	 * Directory where the scripts of this emulator are written 
+	 * (default: system temp directory)
+	 */
+	public void setWorkDir(File dir) {
+		this.workdir = dir;
+	}
+	
 	private HashMap<Integer, Integer> getGlobalMapping(Integer[] inputs) {
 		int input_index = 0;
 		int cell_index = 0;
@@ -177,13 +242,28 @@ public class Binsec {
 	}
 	
 	public int call(Integer[] inputs) {
+		Integer cached = cache != null ? cache.get(inputs) : null;
+		if (cached != null) {
+			return cached;
+		}
+		
 		String config = binsec_init + "\n\n" + setinputs(inputs);
+		int res = server ? callStandby(config) : emulate(config);
+		if (res == TIMEOUT) return 1;
+		/* a crash of Binsec is not an answer: never cache it */
+		if (res == ERROR) return ERROR;
 		
-
+		if (cache != null) {
+			cache.put(inputs, res);
+		}
+		return res;
+	}
+	
+	protected int emulate(String config) {
 		FileWriter myWriter;
 		File temp = null;
 	    try {
-	    	temp = File.createTempFile("binsec_config_", ".txt");
+	    	temp = File.createTempFile("binsec_config_", ".txt", workdir);
 	    	myWriter = new FileWriter(temp);
 			myWriter.write(config);
 			myWriter.close();
@@ -194,49 +274,113 @@ public class Binsec {
 		assert temp != null: "temp file should not be null";
 		
 		Process proc;
-		int res = 0;
+		int res = ERROR;
 		
 		try {
 			
 			//Start time
 		    long begin = System.currentTimeMillis();
 			
-			proc = runtime.exec(new String[] { 
-					"binsec",
-					"-sse", 
-					"-sse-engine", "concrete", 
-					"-sse-script", temp.getPath(),
-					binpath, 
-					"-emul-perm", String.format("%s/resources/permissions.config", System.getenv("PRECA_PATH")),
-					"-sse-timeout", emultimeout.toString(),
-					"-sse-no-screen"
-			});
+			proc = runtime.exec(command(temp.getPath()));
 			proc.waitFor();
 
                         if (proc.exitValue() != 0) {
 			    Files.deleteIfExists(temp.toPath());
 			    assert false: "Error while running Binsec";
+			    return ERROR;
                         }
 
 			
-			BufferedReader stdInput = new BufferedReader(new 
-				     InputStreamReader(proc.getInputStream()));
+			res = readResult(proc);
 			
-			String s = null;
-			while ((s = stdInput.readLine()) != null) {
-			    if (s.contains("[EMUL ERROR]")) {
-			    	res = 1;
-			    }
-			}
-			
-		    if (System.currentTimeMillis() - begin > emultimeout*1000) res = 1;
+		    if (System.currentTimeMillis() - begin > emultimeout*1000) res = TIMEOUT;
 			
 			Files.deleteIfExists(temp.toPath());
 		} catch (IOException | InterruptedException e1) {
 			// TODO Auto-generated catch block
 			e1.printStackTrace();
+			res = ERROR;
+		}
+		
+		return res;
+	}
+	
+	/*
+	 * Server mode: a Binsec process is always kept started and waiting for 
+	 * its script on stdin. Binsec serves a single script per run, so the 
+	 * standby process hides the startup and binary loading of the next query 
+	 * behind the emulation of the current one.
+	 */
+	protected synchronized int callStandby(String config) {
+		int res = ERROR;
+		try {
+			Process proc = (standby != null && standby.isAlive()) ? standby : spawn();
+			standby = null;
+			
+			try (Writer writer = new OutputStreamWriter(proc.getOutputStream())) {
+				writer.write(config);
+			}
+			
+			// start the process for the next query while this one is emulated
+			standby = spawn();
+			
+			//Start time
+			long begin = System.currentTimeMillis();
+			
+			res = readResult(proc);
+			proc.waitFor();
+			
+			if (proc.exitValue() != 0) {
+				System.err.println("[WARNING] Binsec exited with code " + proc.exitValue());
+				assert false: "Error while running Binsec";
+				return ERROR;
+			}
+			
+			if (System.currentTimeMillis() - begin > emultimeout*1000) res = TIMEOUT;
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+			res = ERROR;
 		}
+		return res;
+	}
+	
+	protected Process spawn() throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command("/dev/stdin"));
+		builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+		return builder.start();
+	}
+	
+	protected String[] command(String script) {
+		return new String[] { 
+				"binsec",
+				"-sse", 
+				"-sse-engine", "concrete", 
+				"-sse-script", script,
+				binpath, 
+				"-emul-perm", String.format("%s/resources/permissions.config", System.getenv("PRECA_PATH")),
+				"-sse-timeout", emultimeout.toString(),
+				"-sse-no-screen"
+		};
+	}
+	
+	protected int readResult(Process proc) throws IOException {
+		int res = 0;
+		BufferedReader stdInput = new BufferedReader(new 
+			     InputStreamReader(proc.getInputStream()));
 		
+		String s = null;
+		while ((s = stdInput.readLine()) != null) {
+		    if (s.contains("[EMUL ERROR]")) {
+		    	res = 1;
+		    }
+		}
 		return res;
 	}
+	
+	public synchronized void close() {
+		if (standby != null) {
+			standby.destroy();
+			standby = null;
+		}
+	}
 }
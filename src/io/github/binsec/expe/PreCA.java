@@ -59,6 +59,7 @@ import io.github.binsec.core.acqconstraint.ConstraintMapping;
 import io.github.binsec.core.acqconstraint.Contradiction;
 import io.github.binsec.core.acqconstraint.ContradictionSet;
 import io.github.binsec.core.acqconstraint.DerefConstraint;
+import io.github.binsec.core.acqconstraint.DisjunctionFamily;
 import io.github.binsec.core.acqconstraint.IntCellBinaryEqConstraint;
 import io.github.binsec.core.acqconstraint.IntCellBinaryGTConstraint;
 import io.github.binsec.core.acqconstraint.IntCellBinaryLTConstraint;
@@ -76,8 +77,10 @@ import io.github.binsec.core.acqconstraint.ValidConstraint;
 import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
 import io.github.binsec.core.acqsolver.ACQ_ChocoSolverCells;
 import io.github.binsec.core.acqsolver.ACQ_ConstraintSolver;
+import io.github.binsec.core.acqsolver.IncrementalMiniSatSolver;
 import io.github.binsec.core.acqsolver.MiniSatSolver;
 import io.github.binsec.core.acqsolver.NaPSSolver;
+import io.github.binsec.core.acqsolver.PBSolver;
 import io.github.binsec.core.acqsolver.SATSolver;
 import io.github.binsec.core.acqvariable.ACQ_CellVariable;
 import io.github.binsec.core.acqvariable.CellType;
@@ -85,6 +88,7 @@ import io.github.binsec.core.combinatorial.AllPermutationIterator;
 import io.github.binsec.core.combinatorial.CombinationIterator;
 import io.github.binsec.core.learner.ACQ_Bias;
 import io.github.binsec.core.learner.ACQ_Learner;
+import io.github.binsec.core.learner.ACQ_PoolLearner;
 import io.github.binsec.core.learner.ACQ_Query;
 import io.github.binsec.core.learner.ACQ_Scope;
 import io.github.binsec.core.learner.Answer;
@@ -127,6 +131,12 @@ public class PreCA extends DefaultExperience {
 	static String torun;
 	static boolean weighted = false;
 	static boolean simplify = true;
+	static int query_batch = 1;
+	static int explain_workers = 1;
+	static int marco_workers = 1;
+	static boolean incremental_sat = false;
+	static boolean persistent_model = false;
+	static boolean cell_propagator = false;
 	static ACQ_ConstraintSolver csolv;
 	static ACQ_Bias known;
 	
@@ -140,6 +150,7 @@ public class PreCA extends DefaultExperience {
 	static int[] constant_values = new int[]{0};
 	
 	static Binsec binsec;
+	static int oracle_workers = 1;
 	
 	public PreCA() throws Exception {
 		
@@ -173,10 +184,22 @@ public class PreCA extends DefaultExperience {
 	}
 	
 	public ACQ_ConstraintSolver createSolver() {
-		csolv = new ACQ_ChocoSolverCells(cells);
+		csolv = createWorkerSolver();
 		return csolv;
 	}
 	
+	/*
+	 * Same solver as createSolver, but it is not the one used to simplify 
+	 * the learned network
+	 */
+	@Override
+	public ACQ_ConstraintSolver createWorkerSolver() {
+		ACQ_ChocoSolverCells solver = new ACQ_ChocoSolverCells(cells);
+		solver.setPersistent(persistent_model);
+		solver.setPropagate(cell_propagator);
+		return solver;
+	}
+	
 	protected void printbytes(byte[] bytes) {
 		for (byte b: bytes) {
 			System.out.println(b);
@@ -192,6 +215,26 @@ public class PreCA extends DefaultExperience {
 	}
 	
 	public ACQ_Learner createLearner() {
+		if (oracle_workers <= 1) {
+			return createOracle(binsec);
+		}
+		
+		ArrayList<ACQ_Learner> oracles = new ArrayList<>();
+		for (int i = 0; i < oracle_workers; i++) {
+			Binsec worker = new Binsec(binaryconf, types, globals);
+			try {
+				File workdir = Files.createTempDirectory("binsec_worker_").toFile();
+				workdir.deleteOnExit();
+				worker.setWorkDir(workdir);
+			} catch (IOException e) {
+				System.err.format("IOException: %s%n", e);
+			}
+			oracles.add(createOracle(worker));
+		}
+		return new ACQ_PoolLearner(oracles);
+	}
+	
+	protected ACQ_Learner createOracle(Binsec binsec) {
 		return new ACQ_Learner() {
 			@Override
 			public Answer ask(ACQ_Query e) {
@@ -218,11 +261,20 @@ public class PreCA extends DefaultExperience {
 					assert false;
 					return Answer.UKN;
 				}
+				else if (res == Binsec.ERROR) {
+					/* Binsec crashed: the query stays unclassified */
+					return Answer.UKN;
+				}
 				else {
 					assert false : "Error in evaluation of the expression";
 					return Answer.NO; 
 				}
 			}
+			
+			@Override
+			public void close() {
+				binsec.close();
+			}
 		};
 	}
 
@@ -478,46 +530,18 @@ public class PreCA extends DefaultExperience {
 		}
 		
 		if (disj.size() != 0) {
-			ConstraintSet[] sets = new ConstraintSet[constraints.size()-2+1];
+			/*
+			 * The disjunctions are only created when they are used. Their
+			 * negations are not added: CONACQ removes conjunctions from the bias.
+			 */
+			ConstraintSet base = constraintFactory.createSet(constraints);
 			for (int nb_disj : disj) {
-				if (nb_disj > constraints.size()) continue;
+				if (nb_disj > base.size()) continue;
 				
-				sets[nb_disj-2] = constraintFactory.createSet();
-				CombinationIterator iterator = new CombinationIterator(constraints.size(), nb_disj);
-				while (iterator.hasNext()) {
-					int[] constrs = iterator.next();
-					if(alldiff(constrs)) {
-						ACQ_IConstraint[] iconstrs = new ACQ_IConstraint[constrs.length];
-						for (int i = 0; i < constrs.length; i++) {
-							iconstrs[i] = constraints.get_Constraint(constrs[i]);
-						}
-						
-						if (notneg(iconstrs)) {
-							ConstraintSet constraintSet = constraintFactory.createSet();
-							
-							int weight = 1;
-							weight = iconstrs[0].getWeight();
-							for (ACQ_IConstraint constr: iconstrs) {
-								constraintSet.add(constr);
-								weight = Math.max(weight, constr.getWeight());
-							}
-							
-							ACQ_DisjunctionConstraint new_c = weighted ? 
-									new ACQ_DisjunctionConstraint(constraintFactory, constraintSet, weight) : 
-										new ACQ_DisjunctionConstraint(constraintFactory, constraintSet);
-									
-							sets[nb_disj-2].add(new_c);
-							ACQ_IConstraint neg = weighted ? new_c.getNegation(1) : new_c.getNegation();
-							sets[nb_disj-2].add(neg);
-						}
-					}
-				}
+				DisjunctionFamily family = new DisjunctionFamily(constraintFactory, base, nb_disj, weighted);
+				constraintFactory.register(family);
+				family.addAll(constraints);
 			}
-			
-			for (ConstraintSet set : sets) {
-				if (set != null) constraints.addAll(set);
-			}
-			
 		}
 		
 		ACQ_Network network = new ACQ_Network(constraintFactory, allVarSet, constraints);
@@ -551,28 +575,6 @@ public class PreCA extends DefaultExperience {
 		return res;
 	}
 	
-	protected boolean alldiff(int[] list) {
-		for (int i = 0; i < list.length - 1; i++) {
-			for (int j = i+1; j < list.length; j++) {
-				if (list[i] == list[j]) {
-					return false;
-				}
-			}
-		}
-		return true;
-	}
-	
-	protected boolean notneg(ACQ_IConstraint[] list) {
-		for (int i = 0; i < list.length - 1; i++) {
-			for (int j = i+1; j < list.length; j++) {
-				if (list[i].equals(list[j].getNegation())) {
-					return false;
-				}
-			}
-		}
-		return true;
-	}
-	
 	@Override
 	public ACQ_Bias getKnownConstraints() {
 		BitSet bs = new BitSet();
@@ -675,7 +677,20 @@ public class PreCA extends DefaultExperience {
 		}
 		
 		if (!backknow)	return res;
-		for (ACQ_IConstraint constr: bias.getConstraints()) {
+		// the disjunctions of the families are not created
+		BitSet inFamilies = new BitSet();
+		for (DisjunctionFamily family : constraintfactory.getFamilies()) {
+			inFamilies.set(family.getFirst(), family.getFirst() + family.size());
+		}
+		BitSet ids = bias.getConstraints().toBitSet();
+		BitSet others = (BitSet) ids.clone();
+		others.andNot(inFamilies);
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			if (inFamilies.get(id)) {
+				res.addNegation(id);
+				continue;
+			}
+			ACQ_IConstraint constr = constraintfactory.getConstraint(id);
 			if (constr.getName().contains("_or_") || 
 				(!constr.getName().contains("_and_") && !constr.getName().contains("Not"))) { // we don't want to add redundancy
 
@@ -691,7 +706,8 @@ public class PreCA extends DefaultExperience {
 				 * and remove c1 /\ c2 /\ (~c1 /\ ~c2)
 				 * and TODO remove a(c1) /\ ~a(c1 \/ X) <=> false 
 				 */
-				for (ACQ_IConstraint constr2: bias.getConstraints()) {
+				for (int id2 = others.nextSetBit(0); id2 >= 0; id2 = others.nextSetBit(id2 + 1)) {
+					ACQ_IConstraint constr2 = constraintfactory.getConstraint(id2);
 					if (!(constr instanceof ACQ_DisjunctionConstraint) && !(constr instanceof ACQ_ConjunctionConstraint) &&
 						!(constr2 instanceof ACQ_DisjunctionConstraint) && !(constr2 instanceof ACQ_ConjunctionConstraint) &&
 						(!constr.equals(constr2)) && (!constr.equals(constr2.getNegation()))) {
@@ -1217,6 +1233,9 @@ public class PreCA extends DefaultExperience {
 					+ "# Emulator Options\r\n"
 					+ "bin: <path>                      path to the binary\r\n"
 					+ "binsec: <path>                   path to the binsec initialization file\r\n"
+					+ "oracle_server: <bool>            keep a binsec process started for the next query (default: false)\r\n"
+					+ "oracle_workers: <int>            number of emulations run concurrently (default: 1)\r\n"
+					+ "oracle_cache: <path>             directory where emulation results are kept between runs\r\n"
 					+ "\r\n"
 					+ "# Expected Result\r\n"
 					+ "precond: <predicate>             expected result (optional, used in PreCA evaluation)\r\n"
@@ -1232,6 +1251,13 @@ public class PreCA extends DefaultExperience {
 					+ "emultimeout: <time-seconds>      emulation time budget in seconds\r\n"
 					+ "action_emultimeout: <bool>       anwser to return on emulation timeout (default: false)\r\n"
 					+ "simplify: <bool>                 simplify the result precondition\r\n"
+					+ "query_batch: <int>               number of queries generated and asked together (default: 1)\r\n"
+					+ "explain_workers: <int>           number of consistency checks run concurrently by QuickXplain (default: 1)\r\n"
+					+ "marco_workers: <int>             number of seeds explored concurrently by MARCO (default: 1)\r\n"
+					+ "incremental_sat: <bool>          keep the SAT solver between calls (default: false)\r\n"
+					+ "persistent_model: <bool>         keep the CP model between calls (default: false)\r\n"
+					+ "cell_propagator: <bool>          decide simple networks before calling the CP solver (default: false)\r\n"
+					+ "weighted: <bool>                 prefer queries violating heavier constraints (default: false)\r\n"
 					+ "\r\n"
 					+ "# Language Options\r\n"
 					+ "bias: constr1, ..., constrN      set of constraints to consider (if not setted add all constraints)\r\n"
@@ -1302,6 +1328,30 @@ public class PreCA extends DefaultExperience {
             	else if (line.startsWith("timeout")) {
             		learningtimeout = 1000*Long.parseLong(line.split(":")[1].strip());
             	}
+            	else if (line.startsWith("oracle_workers")) {
+            		oracle_workers = Integer.parseInt(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("weighted")) {
+            		weighted = Boolean.parseBoolean(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("persistent_model")) {
+            		persistent_model = Boolean.parseBoolean(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("cell_propagator")) {
+            		cell_propagator = Boolean.parseBoolean(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("incremental_sat")) {
+            		incremental_sat = Boolean.parseBoolean(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("query_batch")) {
+            		query_batch = Integer.parseInt(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("explain_workers")) {
+            		explain_workers = Integer.parseInt(line.split(":")[1].strip());
+            	}
+            	else if (line.startsWith("marco_workers")) {
+            		marco_workers = Integer.parseInt(line.split(":")[1].strip());
+            	}
             	else if (line.startsWith("simplify")) {
             		simplify = Boolean.parseBoolean(line.split(":")[1].strip());
             	}
@@ -1338,7 +1388,10 @@ public class PreCA extends DefaultExperience {
 
 	@Override
 	public SATSolver createSATSolver() {
-		return new MiniSatSolver();
+		if (weighted) {
+			return new PBSolver();
+		}
+		return incremental_sat ? new IncrementalMiniSatSolver() : new MiniSatSolver();
 		//return new NaPSSolver();
 	}
 	
@@ -1357,6 +1410,21 @@ public class PreCA extends DefaultExperience {
 	public boolean isWeighted() {
 		return weighted;
 	}
+	
+	@Override
+	public int getQueryBatch() {
+		return query_batch;
+	}
+	
+	@Override
+	public int getExplainWorkers() {
+		return explain_workers;
+	}
+	
+	@Override
+	public int getMarcoWorkers() {
+		return marco_workers;
+	}
 
 	
 	public QueryPrinter getQueryPrinter() {
@@ -0,0 +1,115 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqconstraint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
+import io.github.binsec.core.acqvariable.ACQ_CellVariable;
+import io.github.binsec.core.acqvariable.CellType;
+import io.github.binsec.core.combinatorial.CombinationIterator;
+
+public class DisjunctionFamilyTest {
+	
+	/*
+	 * Constraints on two pointers and their negations, as in a bias
+	 */
+	protected static ConstraintSet base(ConstraintFactory factory) {
+		ACQ_CellVariable cell1 = new ACQ_CellVariable(CellType.PTR, false);
+		ACQ_CellVariable cell2 = new ACQ_CellVariable(CellType.PTR, false);
+		ACQ_IConstraint[] constraints = new ACQ_IConstraint[] {
+				new ValidConstraint(cell1),
+				new ValidConstraint(cell2),
+				new StrlenEqConstraint(cell1, 1),
+				new AliasConstraint(cell1, cell2)
+		};
+		ConstraintSet res = factory.createSet();
+		for (ACQ_IConstraint c : constraints) {
+			res.add(c);
+			res.add(c.getNegation());
+		}
+		return res;
+	}
+	
+	protected static DisjunctionFamily family(ConstraintFactory factory, int arity) {
+		DisjunctionFamily res = new DisjunctionFamily(factory, base(factory), arity, false);
+		factory.register(res);
+		return res;
+	}
+	
+	@Test
+	public void rankFollowsCombinationIterator() {
+		for (int arity = 1; arity <= 4; arity++) {
+			DisjunctionFamily family = family(new ConstraintFactory(), arity);
+			CombinationIterator iterator = new CombinationIterator(family.base.length, arity);
+			int rank = 0;
+			while (iterator.hasNext()) {
+				int[] combo = iterator.next().clone();
+				assertEquals(rank, family.rank(combo));
+				assertArrayEquals(combo, family.unrank(rank));
+				rank++;
+			}
+			assertEquals(family.size(), rank);
+		}
+	}
+	
+	@Test
+	public void idOfRoundTrip() {
+		for (int arity = 2; arity <= 4; arity++) {
+			ConstraintFactory factory = new ConstraintFactory();
+			DisjunctionFamily family = family(factory, arity);
+			ConstraintFactory other = new ConstraintFactory();
+			CombinationIterator iterator = new CombinationIterator(family.base.length, arity);
+			int rank = 0;
+			int valid = 0;
+			while (iterator.hasNext()) {
+				int[] combo = iterator.next();
+				int id = family.getFirst() + rank;
+				
+				// the same disjunction, built with another factory
+				ConstraintSet set = other.createSet();
+				for (int c : combo) set.add(family.base[c]);
+				ACQ_IConstraint copy = new ACQ_DisjunctionConstraint(other, set);
+				
+				if (family.isValid(combo)) {
+					ACQ_IConstraint made = factory.getConstraint(id);
+					assertEquals(id, family.idOf(made));
+					assertEquals(id, family.idOf(copy));
+					assertEquals(id, factory.findConstraintId(copy));
+					assertEquals(valid, family.indexOf(id));
+					valid++;
+				}
+				else {
+					assertEquals(-1, family.idOf(copy));
+				}
+				rank++;
+			}
+			assertEquals(family.getValidCount(), valid);
+			assertTrue(valid > 0);
+		}
+	}
+}
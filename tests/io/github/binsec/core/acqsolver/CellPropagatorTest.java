@@ -0,0 +1,132 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
+import io.github.binsec.core.acqconstraint.ACQ_Network;
+import io.github.binsec.core.acqconstraint.ConstraintFactory;
+import io.github.binsec.core.acqconstraint.ConstraintFactory.ConstraintSet;
+import io.github.binsec.core.acqconstraint.IntCellBinaryEqConstraint;
+import io.github.binsec.core.acqconstraint.IntCellBinaryGTConstraint;
+import io.github.binsec.core.acqconstraint.IntCellBinaryLTConstraint;
+import io.github.binsec.core.acqconstraint.IntCellUnaryEqConstraint;
+import io.github.binsec.core.acqconstraint.IntCellUnaryGTConstraint;
+import io.github.binsec.core.acqconstraint.IntCellUnaryLTConstraint;
+import io.github.binsec.core.acqconstraint.IntCellUnaryModConstraint;
+import io.github.binsec.core.acqconstraint.PtrCellBinaryGTConstraint;
+import io.github.binsec.core.acqconstraint.PtrCellBinaryLTConstraint;
+import io.github.binsec.core.acqconstraint.ValidConstraint;
+import io.github.binsec.core.acqvariable.ACQ_CellVariable;
+import io.github.binsec.core.acqvariable.CellType;
+
+public class CellPropagatorTest {
+	
+	static final int ROUNDS = 2000;
+	
+	protected static void addBoth(ArrayList<ACQ_IConstraint> pool, ACQ_IConstraint c) {
+		pool.add(c);
+		pool.add(c.getNegation());
+	}
+	
+	/*
+	 * Cell comparisons, with a few constraints the propagator does not 
+	 * handle (modulo, validity) so that its check of the candidate is used
+	 */
+	protected static ArrayList<ACQ_IConstraint> pool(ACQ_CellVariable[] ints, 
+			ACQ_CellVariable[] uints, ACQ_CellVariable[] ptrs) {
+		ArrayList<ACQ_IConstraint> res = new ArrayList<>();
+		for (ACQ_CellVariable[] cells : new ACQ_CellVariable[][] {ints, uints}) {
+			int min = cells[0].getType() == CellType.UINT ? 0 : -2;
+			for (int i = 0; i < cells.length; i++) {
+				for (int cst = min; cst <= 2; cst++) {
+					addBoth(res, new IntCellUnaryEqConstraint(cells[i], cst));
+					addBoth(res, new IntCellUnaryGTConstraint(cells[i], cst));
+					if (cells[i].getType() != CellType.UINT || cst > 0)
+						addBoth(res, new IntCellUnaryLTConstraint(cells[i], cst));
+				}
+				// choco and check disagree on the modulo of negative values
+				if (cells[i].getType() == CellType.UINT)
+					addBoth(res, new IntCellUnaryModConstraint(cells[i], 2, 0));
+				for (int j = i + 1; j < cells.length; j++) {
+					addBoth(res, new IntCellBinaryEqConstraint(cells[i], cells[j]));
+					addBoth(res, new IntCellBinaryLTConstraint(cells[i], cells[j]));
+					addBoth(res, new IntCellBinaryGTConstraint(cells[i], cells[j]));
+				}
+			}
+		}
+		for (int i = 0; i < ptrs.length; i++) {
+			addBoth(res, new ValidConstraint(ptrs[i]));
+			for (int j = i + 1; j < ptrs.length; j++) {
+				addBoth(res, new PtrCellBinaryLTConstraint(ptrs[i], ptrs[j]));
+				addBoth(res, new PtrCellBinaryGTConstraint(ptrs[i], ptrs[j]));
+			}
+		}
+		return res;
+	}
+	
+	@Test
+	public void sameAnswerAsChoco() {
+		ACQ_CellVariable[] ints = new ACQ_CellVariable[3];
+		ACQ_CellVariable[] uints = new ACQ_CellVariable[2];
+		ACQ_CellVariable[] ptrs = new ACQ_CellVariable[2];
+		for (int i = 0; i < ints.length; i++) ints[i] = new ACQ_CellVariable(CellType.INT, false);
+		for (int i = 0; i < uints.length; i++) uints[i] = new ACQ_CellVariable(CellType.UINT, false);
+		for (int i = 0; i < ptrs.length; i++) ptrs[i] = new ACQ_CellVariable(CellType.PTR, false);
+		ACQ_CellVariable[] cells = new ACQ_CellVariable[ints.length + uints.length + ptrs.length];
+		System.arraycopy(ints, 0, cells, 0, ints.length);
+		System.arraycopy(uints, 0, cells, ints.length, uints.length);
+		System.arraycopy(ptrs, 0, cells, ints.length + uints.length, ptrs.length);
+		
+		// the constants of the constraints widen the domains: build them before the solvers
+		ArrayList<ACQ_IConstraint> pool = pool(ints, uints, ptrs);
+		
+		ACQ_ChocoSolverCells choco = new ACQ_ChocoSolverCells(cells);
+		ACQ_ChocoSolverCells propagated = new ACQ_ChocoSolverCells(cells);
+		propagated.setPropagate(true);
+		
+		ConstraintFactory factory = new ConstraintFactory();
+		Random random = new Random(0);
+		int sat = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			ConstraintSet set = factory.createSet();
+			int size = 1 + random.nextInt(8);
+			for (int k = 0; k < size; k++) {
+				set.add(pool.get(random.nextInt(pool.size())));
+			}
+			ACQ_Network network = new ACQ_Network(factory, set);
+			boolean expected = choco.solve(network);
+			assertEquals("round " + round + ": " + network, expected, propagated.solve(network));
+			if (expected) sat++;
+		}
+		// both outcomes are covered
+		assertTrue(sat > 0 && sat < ROUNDS);
+	}
+}
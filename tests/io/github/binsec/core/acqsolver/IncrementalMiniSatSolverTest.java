@@ -0,0 +1,158 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.acqsolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.github.binsec.core.acqconstraint.ACQ_IConstraint;
+import io.github.binsec.core.acqconstraint.CNF;
+import io.github.binsec.core.acqconstraint.Clause;
+import io.github.binsec.core.acqconstraint.Formula;
+import io.github.binsec.core.acqconstraint.Unit;
+import io.github.binsec.core.acqconstraint.ValidConstraint;
+import io.github.binsec.core.acqvariable.ACQ_CellVariable;
+import io.github.binsec.core.acqvariable.CellType;
+
+public class IncrementalMiniSatSolverTest {
+	
+	static final int NVARS = 10;
+	static final int ROUNDS = 3000;
+	
+	Random random = new Random(0);
+	Unit[] units = new Unit[NVARS];
+	int first;
+	
+	protected Unit literal(int var, boolean neg) {
+		Unit res = units[var].clone();
+		if (neg) res.setNeg();
+		return res;
+	}
+	
+	protected Clause randomClause() {
+		Clause res = new Clause();
+		int size = 1 + random.nextInt(3);
+		for (int k = 0; k < size; k++) {
+			res.add(literal(random.nextInt(NVARS), random.nextBoolean()));
+		}
+		return res;
+	}
+	
+	/* the model is only read on positive units */
+	protected boolean value(SATModel model, Unit unit) {
+		return model.get(units[unit.getMiniSatVar() - first]);
+	}
+	
+	protected boolean satisfies(SATModel model, Clause cl) {
+		for (Unit unit : cl) {
+			if (value(model, unit) != unit.isNeg()) return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Random formulas, sometimes with a cardinality constraint, solved by both
+	 * solvers. A logged CNF grows across the calls like the background knowledge
+	 * of CONACQ and is sometimes replaced.
+	 */
+	@Test
+	public void sameAnswerAsMiniSat() {
+		MiniSatSolver reference = new MiniSatSolver();
+		IncrementalMiniSatSolver incremental = new IncrementalMiniSatSolver();
+		reference.setLimit(10L);
+		incremental.setLimit(10L);
+		
+		first = reference.reserveVars(NVARS);
+		assertEquals(first, incremental.reserveVars(NVARS));
+		for (int i = 0; i < NVARS; i++) {
+			ACQ_IConstraint constr = new ValidConstraint(new ACQ_CellVariable(CellType.PTR, false));
+			units[i] = incremental.addVar(() -> constr, first + i);
+		}
+		
+		CNF logged = new CNF();
+		logged.enableLog();
+		int sat = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			if (round % 50 == 0) {
+				logged = new CNF();
+				logged.enableLog();
+			}
+			if (random.nextInt(4) == 0) {
+				logged.add(randomClause());
+			}
+			
+			Formula formula = new Formula();
+			CNF cnf = new CNF();
+			int size = 1 + random.nextInt(30);
+			for (int k = 0; k < size; k++) {
+				cnf.add(randomClause());
+			}
+			formula.addCnf(cnf);
+			boolean withLog = random.nextBoolean();
+			if (withLog) formula.addCnf(logged);
+			
+			Clause card = null;
+			int lower = 0, upper = 0;
+			if (random.nextBoolean()) {
+				card = new Clause();
+				int n = 2 + random.nextInt(4);
+				HashSet<Integer> vars = new HashSet<>();
+				while (vars.size() < n) {
+					int var = random.nextInt(NVARS);
+					if (vars.add(var)) card.add(literal(var, false));
+				}
+				lower = 1 + random.nextInt(n - 1);
+				upper = lower + random.nextInt(n - lower);
+				formula.setAtLeastAtMost(card, lower, upper);
+			}
+			
+			SATModel expected = reference.solve(formula);
+			SATModel model = incremental.solve(formula);
+			assertEquals("round " + round, expected == null, model == null);
+			if (model == null) continue;
+			sat++;
+			
+			ArrayList<Clause> clauses = new ArrayList<>();
+			for (Clause cl : cnf) clauses.add(cl);
+			if (withLog) for (Clause cl : logged) clauses.add(cl);
+			for (Clause cl : clauses) {
+				assertTrue("round " + round + ": " + cl, satisfies(model, cl));
+			}
+			if (card != null) {
+				int count = 0;
+				for (Unit unit : card) {
+					if (value(model, unit)) count++;
+				}
+				assertTrue("round " + round, lower <= count && count <= upper);
+			}
+		}
+		// both outcomes are covered
+		assertTrue(sat > 0 && sat < ROUNDS);
+	}
+}
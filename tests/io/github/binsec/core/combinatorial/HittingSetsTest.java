@@ -0,0 +1,111 @@
+/****************************************************************************/
+/*  This file is part of PRECA.                                             */
+/*  PRECA is part of the BINSEC toolbox for binary-level program analysis.  */
+/*                                                                          */
+/*  Copyright (C) 2019-2023                                                 */
+/*    CEA (Commissariat à l'énergie atomique et aux énergies                */
+/*         alternatives)                                                    */
+/*                                                                          */
+/*  you can redistribute it and/or modify it under the terms of the GNU     */
+/*  Lesser General Public License as published by the Free Software         */
+/*  Foundation, version 2.1.                                                */
+/*                                                                          */
+/*  It is distributed in the hope that it will be useful,                   */
+/*  but WITHOUT ANY WARRANTY; without even the implied warranty of          */
+/*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the           */
+/*  GNU Lesser General Public License for more details.                     */
+/*                                                                          */
+/*  See the GNU Lesser General Public License version 2.1                   */
+/*  for more details (enclosed in the file licenses/LGPLv2.1).              */
+/*                                                                          */
+/****************************************************************************/
+
+package io.github.binsec.core.combinatorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class HittingSetsTest {
+	
+	static final int UNIVERSE = 7;
+	
+	/*
+	 * Minimal hitting sets of family by enumeration of the subsets of the universe
+	 */
+	protected static HashSet<BitSet> bruteForce(List<BitSet> family) {
+		ArrayList<BitSet> hitting = new ArrayList<>();
+		for (long mask = 0; mask < (1L << UNIVERSE); mask++) {
+			BitSet cand = BitSet.valueOf(new long[] {mask});
+			boolean hits = true;
+			for (BitSet set : family) {
+				hits &= cand.intersects(set);
+			}
+			if (hits) hitting.add(cand);
+		}
+		HashSet<BitSet> res = new HashSet<>();
+		for (BitSet cand : hitting) {
+			boolean minimal = true;
+			for (BitSet other : hitting) {
+				BitSet tmp = (BitSet) other.clone();
+				tmp.andNot(cand);
+				minimal &= !tmp.isEmpty() || other.equals(cand);
+			}
+			if (minimal) res.add(cand);
+		}
+		return res;
+	}
+	
+	@Test
+	public void sameAsBruteForce() throws TimeoutException {
+		Random random = new Random(0);
+		for (int round = 0; round < 500; round++) {
+			HittingSets hitting = new HittingSets();
+			ArrayList<BitSet> family = new ArrayList<>();
+			assertEquals(bruteForce(family), new HashSet<>(hitting.get()));
+			int size = 1 + random.nextInt(6);
+			for (int k = 0; k < size; k++) {
+				BitSet set = new BitSet();
+				while (set.isEmpty()) {
+					for (int e = 0; e < UNIVERSE; e++) {
+						if (random.nextInt(3) == 0) set.set(e);
+					}
+				}
+				family.add(set);
+				hitting.add(set, null);
+				List<BitSet> res = hitting.get();
+				assertEquals("round " + round + ": " + family, bruteForce(family), new HashSet<>(res));
+				// no duplicate
+				assertEquals(res.size(), new HashSet<>(res).size());
+			}
+		}
+	}
+	
+	@Test
+	public void timeoutLeavesHittingSetsUnchanged() throws TimeoutException {
+		HittingSets hitting = new HittingSets();
+		BitSet first = new BitSet();
+		first.set(0);
+		first.set(1);
+		hitting.add(first, null);
+		HashSet<BitSet> before = new HashSet<>(hitting.get());
+		
+		BitSet second = new BitSet();
+		second.set(2);
+		try {
+			hitting.add(second, 0L);
+			fail("deadline passed");
+		}
+		catch (TimeoutException e) {
+			assertEquals(before, new HashSet<>(hitting.get()));
+		}
+	}
+}